@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+/**
+ * Encodes the serialized form of large session attributes before they are
+ * stored in the distributed map, typically by compressing them. See
+ * {@link WebFilterConfig#ATTRIBUTE_CODEC}.
+ * <p>
+ * Implementations need a public no-argument constructor and must be available
+ * to every web application reading the sessions, since an encoded attribute
+ * records the class name of the codec which encoded it.
+ */
+public interface AttributeCodec {
+
+    /**
+     * Encodes the serialized form of an attribute.
+     *
+     * @param bytes the serialized attribute
+     * @return the encoded attribute
+     */
+    byte[] encode(byte[] bytes);
+
+    /**
+     * Decodes an attribute encoded by {@link #encode(byte[])}.
+     *
+     * @param bytes the encoded attribute
+     * @return the serialized attribute
+     */
+    byte[] decode(byte[] bytes);
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.config.InvalidConfigurationException;
+import com.hazelcast.internal.nio.ClassLoaderUtil;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes large serialized attributes with the {@link AttributeCodec} set by
+ * {@link WebFilterConfig#ATTRIBUTE_CODEC}, and decodes encoded attributes with
+ * the codec which encoded them, so attributes stored without encoding or
+ * encoded by another configured codec are read as well.
+ * <p>
+ * The codecs are only created from the configuration: attributes are decoded
+ * by the codec set by ATTRIBUTE_CODEC or one of the codecs set by
+ * {@link WebFilterConfig#ATTRIBUTE_DECODING_CODECS}. The codec class name an
+ * encoded attribute carries only selects one of them, so data read from the
+ * cluster can not make the web application create any other class.
+ */
+final class AttributeEncoder {
+
+    private final AttributeCodec codec;
+    private final int threshold;
+    private final Map<String, AttributeCodec> decodingCodecs = new HashMap<>();
+
+    AttributeEncoder(String codecClassName, Set<String> decodingCodecClassNames, int threshold) {
+        this.codec = codecClassName == null ? null : newCodec(codecClassName.trim());
+        this.threshold = threshold;
+        if (codec != null) {
+            decodingCodecs.put(codec.getClass().getName(), codec);
+        }
+        for (String decodingCodecClassName : decodingCodecClassNames) {
+            decodingCodecs.computeIfAbsent(decodingCodecClassName, AttributeEncoder::newCodec);
+        }
+    }
+
+    /**
+     * Encodes a serialized attribute if it is at least as large as the threshold,
+     * unless encoding does not make it smaller.
+     *
+     * @param ss   the serialization service
+     * @param data the serialized attribute
+     * @return the encoded attribute, or the given one if it is not encoded
+     */
+    Data encode(SerializationService ss, Data data) {
+        if (codec == null || data == null || data.totalSize() < threshold) {
+            return data;
+        }
+        byte[] encoded = codec.encode(data.toByteArray());
+        if (encoded.length >= data.totalSize()) {
+            return data;
+        }
+        return ss.toData(new EncodedAttribute(codec.getClass().getName(), encoded));
+    }
+
+    /**
+     * Decodes an attribute if it was encoded.
+     *
+     * @param ss    the serialization service
+     * @param value the deserialized attribute, an {@link EncodedAttribute} if it was encoded
+     * @return the attribute
+     * @throws HazelcastSerializationException if the attribute was encoded by a codec which is not configured
+     */
+    Object decode(SerializationService ss, Object value) {
+        if (!(value instanceof EncodedAttribute)) {
+            return value;
+        }
+        EncodedAttribute encodedAttribute = (EncodedAttribute) value;
+        AttributeCodec decodingCodec = decodingCodecs.get(encodedAttribute.getCodecClassName());
+        if (decodingCodec == null) {
+            throw new HazelcastSerializationException("Attribute encoded by " + encodedAttribute.getCodecClassName()
+                    + ", which is neither set by " + WebFilterConfig.ATTRIBUTE_CODEC + " nor by "
+                    + WebFilterConfig.ATTRIBUTE_DECODING_CODECS);
+        }
+        return ss.toObject(new HeapData(decodingCodec.decode(encodedAttribute.getBytes())));
+    }
+
+    private static AttributeCodec newCodec(String className) {
+        Class<?> codecClass;
+        try {
+            codecClass = ClassLoaderUtil.loadClass(Thread.currentThread().getContextClassLoader(), className);
+        } catch (Exception e) {
+            throw new InvalidConfigurationException("Attribute codec " + className + " could not be loaded: " + e);
+        }
+        if (!AttributeCodec.class.isAssignableFrom(codecClass)) {
+            throw new InvalidConfigurationException("Attribute codec " + className + " does not implement "
+                    + AttributeCodec.class.getName());
+        }
+        try {
+            return (AttributeCodec) codecClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new InvalidConfigurationException("Attribute codec " + className + " could not be created: " + e);
+        }
+    }
+}
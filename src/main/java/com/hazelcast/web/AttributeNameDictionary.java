@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the attribute names of the session states and entry processors. The
+ * names commonly stored by frameworks are written as a single byte, their
+ * index in a fixed dictionary, and other names as strings.
+ * <p>
+ * The dictionary is part of the serialized form, so names may only be
+ * appended to it.
+ */
+public final class AttributeNameDictionary {
+
+    private static final byte NOT_IN_DICTIONARY = -1;
+
+    private static final String[] NAMES = {
+            "SPRING_SECURITY_CONTEXT",
+            "SPRING_SECURITY_SAVED_REQUEST",
+            "SPRING_SECURITY_LAST_EXCEPTION",
+            "org.springframework.web.servlet.support.SessionFlashMapManager.FLASH_MAPS",
+            "org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository.CSRF_TOKEN",
+            "org.springframework.web.servlet.i18n.SessionLocaleResolver.LOCALE",
+            "org.springframework.web.servlet.theme.SessionThemeResolver.THEME",
+            "org.springframework.web.servlet.i18n.SessionLocaleResolver.TIME_ZONE",
+            "com.sun.faces.renderkit.ServerSideStateHelper.LogicalViewMap",
+            "com.sun.faces.application.view.activeViewMaps",
+            "jakarta.servlet.jsp.jstl.fmt.locale.session",
+            "jakarta.servlet.jsp.jstl.fmt.timeZone.session",
+    };
+
+    private static final Map<String, Byte> INDEXES = new HashMap<>();
+
+    static {
+        for (byte i = 0; i < NAMES.length; i++) {
+            INDEXES.put(NAMES[i], i);
+        }
+    }
+
+    private AttributeNameDictionary() {
+    }
+
+    /**
+     * Writes an attribute name.
+     *
+     * @param out  the output
+     * @param name the attribute name
+     * @throws IOException if the name could not be written
+     */
+    public static void writeName(ObjectDataOutput out, String name) throws IOException {
+        Byte index = INDEXES.get(name);
+        if (index != null) {
+            out.writeByte(index);
+        } else {
+            out.writeByte(NOT_IN_DICTIONARY);
+            out.writeString(name);
+        }
+    }
+
+    /**
+     * Reads an attribute name written by {@link #writeName(ObjectDataOutput, String)}.
+     *
+     * @param in the input
+     * @return the attribute name
+     * @throws IOException if the name could not be read
+     */
+    public static String readName(ObjectDataInput in) throws IOException {
+        byte index = in.readByte();
+        if (index == NOT_IN_DICTIONARY) {
+            return in.readString();
+        }
+        if (index < 0 || index >= NAMES.length) {
+            throw new IOException("Unknown attribute name index: " + index);
+        }
+        return NAMES[index];
+    }
+}
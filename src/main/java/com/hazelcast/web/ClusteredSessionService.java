@@ -15,6 +15,8 @@
 
 package com.hazelcast.web;
 
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.EntryView;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.internal.serialization.Data;
 import com.hazelcast.map.IMap;
@@ -22,29 +24,32 @@ import com.hazelcast.instance.impl.OutOfMemoryErrorDispatcher;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.map.EntryProcessor;
-import com.hazelcast.map.impl.MapEntrySimple;
 import com.hazelcast.spi.impl.SerializationServiceSupport;
 import com.hazelcast.internal.serialization.SerializationService;
 import com.hazelcast.internal.util.ExceptionUtil;
 import com.hazelcast.web.entryprocessor.DeleteSessionEntryProcessor;
 import com.hazelcast.web.entryprocessor.GetAttributeEntryProcessor;
 import com.hazelcast.web.entryprocessor.GetAttributeNamesEntryProcessor;
-import com.hazelcast.web.entryprocessor.GetSessionStateEntryProcessor;
+import com.hazelcast.web.entryprocessor.GetAttributesEntryProcessor;
+import com.hazelcast.web.entryprocessor.GetSessionChangesEntryProcessor;
 import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+import com.hazelcast.web.entryprocessor.TouchSessionEntryProcessor;
 
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.ServletException;
 
 import java.util.AbstractMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 
 
@@ -56,6 +61,7 @@ import java.util.logging.Level;
  * issued, a background thread always retries connection and ensures the
  * safety of connection.
  */
+@SuppressWarnings("checkstyle:classdataabstractioncoupling")
 public class ClusteredSessionService {
 
     /**
@@ -64,12 +70,20 @@ public class ClusteredSessionService {
     protected static final ILogger LOGGER = Logger.getLogger(ClusteredSessionService.class);
     private static final long CLUSTER_CHECK_INTERVAL = 5L;
     private static final long RETRY_MILLIS = 7000;
+    private static final long MEGABYTE = 1L << 20;
 
     private volatile IMap<String, SessionState> clusterMap;
     private volatile SerializationServiceSupport sss;
     private volatile HazelcastInstance hazelcastInstance;
 
     private final WebFilterConfig filterConfig;
+    private final DeferredWriteExecutor deferredWriteExecutor;
+    private final CoalescingWriteBuffer coalescingWriteBuffer;
+    private final SessionTouchScheduler sessionTouchScheduler;
+
+    private final LongAdder suppressedWrites = new LongAdder();
+    private final AttributeEncoder attributeEncoder;
+    private final OffHeapDataStore offHeapDataStore;
 
     private final Queue<AbstractMap.SimpleEntry<String, Boolean>> orphanSessions = new LinkedBlockingQueue<>();
 
@@ -84,6 +98,24 @@ public class ClusteredSessionService {
      */
     public ClusteredSessionService(WebFilterConfig filterConfig) {
         this.filterConfig = filterConfig;
+        this.coalescingWriteBuffer = filterConfig.isDeferredWrite() && filterConfig.isDeferredWriteCoalescing()
+                ? new CoalescingWriteBuffer(this, filterConfig.getDeferredWriteCoalescingFlushIntervalMillis(),
+                filterConfig.getDeferredWriteCoalescingMaxBatchSize(),
+                filterConfig.getDeferredWriteCoalescingMaxStalenessMillis())
+                : null;
+        this.deferredWriteExecutor = coalescingWriteBuffer == null
+                && filterConfig.isDeferredWrite() && filterConfig.isDeferredWriteAsync()
+                ? new DeferredWriteExecutor(this, filterConfig.getDeferredWriteAsyncThreads(),
+                filterConfig.getDeferredWriteAsyncQueueCapacity())
+                : null;
+        this.attributeEncoder = new AttributeEncoder(filterConfig.getAttributeCodec(),
+                filterConfig.getAttributeDecodingCodecs(), filterConfig.getAttributeCodecThreshold());
+        this.sessionTouchScheduler = filterConfig.isKeepRemoteActive()
+                ? new SessionTouchScheduler(this, knownSessionMaxIdleMillis())
+                : null;
+        this.offHeapDataStore = filterConfig.getLocalCacheOffHeapSizeMb() > 0
+                ? new OffHeapDataStore(filterConfig.getLocalCacheOffHeapSizeMb() * MEGABYTE)
+                : null;
         try {
             init();
         } catch (Exception e) {
@@ -167,25 +199,166 @@ public class ClusteredSessionService {
     }
 
     /**
-     * Gets attributes.
+     * Execute on key asynchronously.
+     *
+     * @param sessionId the session id
+     * @param processor the processor
+     * @return the completion stage of the processor result
+     */
+    <R> CompletionStage<R> executeOnKeyAsync(String sessionId, EntryProcessor<String, SessionState, R> processor) {
+        try {
+            return clusterMap.submitToKey(sessionId, processor);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINEST, "Cannot connect hazelcast server", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Execute on keys asynchronously.
+     *
+     * @param sessionIds the session ids
+     * @param processor  the processor
+     * @return the completion stage of the processor results
+     */
+    <R> CompletionStage<Map<String, R>> executeOnKeysAsync(Set<String> sessionIds,
+                                                           EntryProcessor<String, SessionState, R> processor) {
+        try {
+            return clusterMap.submitToKeys(sessionIds, processor);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINEST, "Cannot connect hazelcast server", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the owner of the partition of a session.
+     *
+     * @param sessionId the session id
+     * @return the partition owner, or null if it is not assigned yet
+     */
+    public Member getPartitionOwner(String sessionId) {
+        return hazelcastInstance.getPartitionService().getPartition(sessionId).getOwner();
+    }
+
+    /**
+     * Gets the changes of a session since the given version.
+     *
+     * @param sessionId the session id
+     * @param version   the version of the session state known by the caller
+     * @return the changes, see {@link SessionState#changesSince(long)}, or null if the session does not exist
+     */
+    SessionState getSessionChanges(String sessionId, long version) {
+        awaitDeferredWrites(sessionId);
+        return (SessionState) executeOnKey(sessionId, new GetSessionChangesEntryProcessor(version));
+    }
+
+    /**
+     * Gets the given attributes of a session with a single call.
+     *
+     * @param sessionId      the session id
+     * @param attributeNames the names of the attributes to get
+     * @return the attributes, see {@link SessionState#select(Set)}, or null if the session does not exist
+     */
+    SessionState getSessionAttributes(String sessionId, Set<String> attributeNames) {
+        awaitDeferredWrites(sessionId);
+        return (SessionState) executeOnKey(sessionId, new GetAttributesEntryProcessor(attributeNames));
+    }
+
+    /**
+     * Gets the session state with a map read, which is served by the Near Cache
+     * when {@link WebFilterConfig#USE_NEAR_CACHE} is enabled. The returned state
+     * may be shared with the Near Cache, so it must not be modified.
      *
      * @param sessionId the session id
-     * @return the attributes
+     * @return the session state, or null if the session does not exist
+     */
+    SessionState getSessionState(String sessionId) {
+        awaitDeferredWrites(sessionId);
+        try {
+            return clusterMap.get(sessionId);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINEST, "Cannot connect hazelcast server", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Deserializes an attribute value of a session state, decoding it first if
+     * it was encoded by an {@link AttributeCodec}.
+     *
+     * @param value the serialized value
+     * @return the attribute value
+     */
+    Object toObject(Data value) {
+        return decode(sss.getSerializationService().toObject(value));
+    }
+
+    /**
+     * Serializes an attribute. If {@link WebFilterConfig#ATTRIBUTE_CODEC} is set,
+     * a large attribute is encoded, unless encoding does not make it smaller.
+     *
+     * @param value the attribute, or its serialized form which is returned as it is
+     * @return the serialized attribute
      */
-    Set<Map.Entry<String, Object>> getAttributes(String sessionId) {
-        GetSessionStateEntryProcessor entryProcessor = new GetSessionStateEntryProcessor();
-        SessionState sessionState = (SessionState) executeOnKey(sessionId, entryProcessor);
-        if (sessionState == null) {
-            return null;
+    Data toData(Object value) {
+        if (value instanceof Data) {
+            return (Data) value;
         }
-        Map<String, Data> dataAttributes = sessionState.getAttributes();
-        Set<Map.Entry<String, Object>> attributes = new HashSet<>(dataAttributes.size());
-        for (Map.Entry<String, Data> entry : dataAttributes.entrySet()) {
-            String key = entry.getKey();
-            Object value = sss.getSerializationService().toObject(entry.getValue());
-            attributes.add(new MapEntrySimple<>(key, value));
+        SerializationService ss = sss.getSerializationService();
+        return attributeEncoder.encode(ss, ss.toData(value));
+    }
+
+    /**
+     * Moves a serialized attribute value cached locally to off-heap memory, if
+     * {@link WebFilterConfig#LOCAL_CACHE_OFF_HEAP_SIZE_MB} is set.
+     *
+     * @param value the serialized value
+     * @return the value to cache locally, which may be a handle of the value in off-heap memory
+     */
+    Object toLocalData(Data value) {
+        return offHeapDataStore != null ? offHeapDataStore.store(value) : value;
+    }
+
+    /**
+     * @return the store keeping the locally cached attributes in off-heap memory,
+     * or null if {@link WebFilterConfig#LOCAL_CACHE_OFF_HEAP_SIZE_MB} is not set
+     */
+    public OffHeapDataStore getOffHeapDataStore() {
+        return offHeapDataStore;
+    }
+
+    private Object decode(Object value) {
+        return attributeEncoder.decode(sss.getSerializationService(), value);
+    }
+
+    void recordSuppressedWrites(int count) {
+        if (count > 0) {
+            suppressedWrites.add(count);
         }
-        return attributes;
+    }
+
+    /**
+     * Returns the number of attribute writes which were not sent to the cluster
+     * on a deferred write, since the serialized value was equal to the one the
+     * cluster already held.
+     *
+     * @return the number of suppressed attribute writes
+     */
+    public long getSuppressedWriteCount() {
+        return suppressedWrites.sum();
+    }
+
+    boolean isUseNearCache() {
+        return filterConfig.isUseNearCache();
+    }
+
+    boolean isTrackMutations() {
+        return filterConfig.isDeferredWrite() && filterConfig.isDeferredWriteTrackMutations();
+    }
+
+    boolean isPackedSessionState() {
+        return filterConfig.isPackedSessionState();
     }
 
     /**
@@ -196,8 +369,9 @@ public class ClusteredSessionService {
      * @return the attribute
      */
     Object getAttribute(String sessionId, String attributeName) {
+        awaitDeferredWrites(sessionId);
         GetAttributeEntryProcessor entryProcessor = new GetAttributeEntryProcessor(attributeName);
-        return executeOnKey(sessionId, entryProcessor);
+        return decode(executeOnKey(sessionId, entryProcessor));
     }
 
     /**
@@ -218,11 +392,28 @@ public class ClusteredSessionService {
      * @param value         the value
      */
     void setAttribute(String sessionId, String attributeName, Object value) {
-        Data dataValue = (value == null) ? null : sss.getSerializationService().toData(value);
+        Data dataValue = (value == null) ? null : toData(value);
         SessionUpdateEntryProcessor sessionUpdateProcessor = new SessionUpdateEntryProcessor(attributeName, dataValue);
+        sessionUpdateProcessor.setPackedState(filterConfig.isPackedSessionState());
         executeOnKey(sessionId, sessionUpdateProcessor);
     }
 
+    /**
+     * Sets attribute asynchronously. The value is serialized before this method
+     * returns, so serialization failures are thrown to the caller.
+     *
+     * @param sessionId     the session id
+     * @param attributeName the attribute name
+     * @param value         the value, {@code null} to remove the attribute
+     * @return the completion stage of the update
+     */
+    CompletionStage<Object> setAttributeAsync(String sessionId, String attributeName, Object value) {
+        Data dataValue = (value == null) ? null : toData(value);
+        SessionUpdateEntryProcessor sessionUpdateProcessor = new SessionUpdateEntryProcessor(attributeName, dataValue);
+        sessionUpdateProcessor.setPackedState(filterConfig.isPackedSessionState());
+        return executeOnKeyAsync(sessionId, sessionUpdateProcessor);
+    }
+
     /**
      * Check if session with sessionId exists on the cluster
      *
@@ -230,17 +421,77 @@ public class ClusteredSessionService {
      * @return true if session exists on the cluster
      */
     public boolean containsSession(String sessionId) {
+        awaitDeferredWrites(sessionId);
         return clusterMap.containsKey(sessionId);
     }
 
     /**
-     * Make an async get call to the cluster map for the given session.
-     * Called to reset the idle time of a session hence the future is ignored.
+     * Resets the idle time of a session on the cluster. If
+     * {@link WebFilterConfig#KEEP_REMOTE_ACTIVE} is enabled, the session is
+     * touched later with other sessions, see {@link SessionTouchScheduler}.
+     *
+     * @param sessionId the session id
+     */
+    void touchSession(String sessionId) {
+        if (sessionTouchScheduler != null) {
+            sessionTouchScheduler.touch(sessionId);
+        } else {
+            touchSessionAsync(sessionId);
+        }
+    }
+
+    /**
+     * Resets the idle time of sessions on the cluster with a single call, without
+     * reading the session states.
+     *
+     * @param sessionIds the session ids
+     * @return the completion stage of the call
+     */
+    public CompletionStage<Map<String, Void>> touchSessionsAsync(Set<String> sessionIds) {
+        return executeOnKeysAsync(sessionIds, new TouchSessionEntryProcessor());
+    }
+
+    /**
+     * Gets the maximum idle time of the sessions in the cluster, as reported by
+     * the map entry of a session.
+     *
+     * @param sessionId the id of an existing session
+     * @return the maximum idle time, or -1 if the session does not exist
+     */
+    public long getSessionMaxIdleMillis(String sessionId) {
+        EntryView<String, SessionState> entryView = clusterMap.getEntryView(sessionId);
+        return entryView == null ? -1 : entryView.getMaxIdle();
+    }
+
+    /**
+     * @return the maximum idle time the filter configured on the Hazelcast instance it
+     * created, or -1 if the instance is configured elsewhere
+     */
+    private long knownSessionMaxIdleMillis() {
+        return filterConfig.isUseClient() || filterConfig.getInstanceName() != null
+                ? -1 : TimeUnit.SECONDS.toMillis(filterConfig.getSessionTtlSeconds());
+    }
+
+    /**
+     * Resets the idle time of a session on the cluster asynchronously, with an
+     * entry processor which always reaches the owner of the session, even with a
+     * Near Cache, and does not return the session state.
+     *
+     * @param sessionId     the session Id
+     */
+    public void touchSessionAsync(String sessionId) {
+        executeOnKeyAsync(sessionId, new TouchSessionEntryProcessor());
+    }
+
+    /**
+     * Resets the idle time of a session on the cluster asynchronously.
      *
      * @param sessionId     the session Id
+     * @deprecated it does not get the session, use {@link #touchSessionAsync(String)}
      */
+    @Deprecated
     public void getSessionAsync(String sessionId) {
-        clusterMap.getAsync(sessionId);
+        touchSessionAsync(sessionId);
     }
 
     /**
@@ -262,6 +513,7 @@ public class ClusteredSessionService {
     }
 
     private void doDeleteSession(String sessionId, boolean invalidate) {
+        awaitDeferredWrites(sessionId);
         DeleteSessionEntryProcessor entryProcessor = new DeleteSessionEntryProcessor(invalidate);
         executeOnKey(sessionId, entryProcessor);
     }
@@ -273,30 +525,68 @@ public class ClusteredSessionService {
      * @return the attribute names
      */
     public Set<String> getAttributeNames(String id) {
+        awaitDeferredWrites(id);
         return executeOnKey(id, new GetAttributeNamesEntryProcessor());
     }
 
     /**
-     * Update attributes.
+     * Update attributes. The updates are serialized before this method returns.
+     * If {@link WebFilterConfig#DEFERRED_WRITE_COALESCING} is enabled, they are
+     * buffered and sent with the updates of other sessions. Otherwise, if
+     * {@link WebFilterConfig#DEFERRED_WRITE_ASYNC} is enabled, they are sent to
+     * the cluster by a background thread.
      *
      * @param id      the id
-     * @param updates the updates
+     * @param updates the updates, values which are already serialized {@link Data} are sent as they are
+     * @return a stage completing when the updates are applied, exceptionally if they could not be applied
      */
-    public void updateAttributes(String id, Map<String, Object> updates) {
-        SerializationService ss = sss.getSerializationService();
+    public CompletionStage<Void> updateAttributes(String id, Map<String, Object> updates) {
         SessionUpdateEntryProcessor sessionUpdate = new SessionUpdateEntryProcessor(updates.size());
+        sessionUpdate.setPackedState(filterConfig.isPackedSessionState());
         for (Map.Entry<String, Object> entry : updates.entrySet()) {
             String name = entry.getKey();
             Object value = entry.getValue();
-            sessionUpdate.getAttributes().put(name, ss.toData(value));
+            sessionUpdate.getAttributes().put(name, toData(value));
+        }
+        if (coalescingWriteBuffer != null) {
+            return coalescingWriteBuffer.add(id, sessionUpdate.getAttributes());
+        } else if (deferredWriteExecutor != null) {
+            return deferredWriteExecutor.execute(id, sessionUpdate);
         }
         executeOnKey(id, sessionUpdate);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Sends the pending deferred writes to the cluster and stops the background
+     * threads sending them. Later deferred writes are sent by the caller thread.
+     */
+    public void flushDeferredWrites() {
+        if (coalescingWriteBuffer != null) {
+            coalescingWriteBuffer.shutdown();
+        }
+        if (deferredWriteExecutor != null) {
+            deferredWriteExecutor.shutdown();
+        }
+    }
+
+    private void awaitDeferredWrites(String sessionId) {
+        if (coalescingWriteBuffer != null) {
+            coalescingWriteBuffer.awaitPendingWrites(sessionId);
+        }
+        if (deferredWriteExecutor != null) {
+            deferredWriteExecutor.awaitPendingWrites(sessionId);
+        }
     }
 
     /**
      * Destroy void.
      */
     public void destroy() {
+        flushDeferredWrites();
+        if (sessionTouchScheduler != null) {
+            sessionTouchScheduler.shutdown();
+        }
         if (hazelcastInstance != null) {
             try {
                 hazelcastInstance.getLifecycleService().shutdown();
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.instance.impl.OutOfMemoryErrorDispatcher;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.web.entryprocessor.SessionBatchUpdateEntryProcessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers the deferred session writes for a short time and sends them in
+ * batches, so a member receives one operation for the writes of many sessions
+ * instead of one operation per request.
+ * <p>
+ * The writes of a session buffered before a flush are merged into one update.
+ * A flush groups the sessions by the owner of their partition and sends each
+ * group with one {@link SessionBatchUpdateEntryProcessor}. Flushes run one at a
+ * time, so the writes of a session are applied in order. The buffer is flushed
+ * periodically, when it holds the maximum batch size of sessions, and when a
+ * read of a buffered session needs its writes, see {@link #awaitPendingWrites(String)}.
+ * If its oldest write is older than the maximum staleness because the cluster
+ * is slower than the requests, writers wait for the buffer to be flushed.
+ */
+final class CoalescingWriteBuffer {
+
+    private static final ILogger LOGGER = Logger.getLogger(CoalescingWriteBuffer.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ClusteredSessionService clusteredSessionService;
+    private final int maxBatchSize;
+    private final long maxStalenessNanos;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            try {
+                runnable.run();
+            } catch (OutOfMemoryError e) {
+                OutOfMemoryErrorDispatcher.onOutOfMemory(e);
+            }
+        }, ".hazelcast-wm.writeCoalescing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The last batch holding a write of each session with pending writes.
+     */
+    private final ConcurrentMap<String, Batch> pendingBatches = new ConcurrentHashMap<>();
+    private final Object bufferMutex = new Object();
+    private final Object flushMutex = new Object();
+
+    // guarded by bufferMutex
+    private Batch buffer = new Batch();
+    private volatile boolean shutdown;
+
+    CoalescingWriteBuffer(ClusteredSessionService clusteredSessionService, long flushIntervalMillis, int maxBatchSize,
+                          long maxStalenessMillis) {
+        this.clusteredSessionService = clusteredSessionService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers the given attribute updates of the session.
+     *
+     * @param sessionId  the session id
+     * @param attributes the serialized attribute updates, {@code null} values remove the attribute
+     * @return a future completing when the updates are applied, exceptionally if they could not be applied
+     */
+    CompletableFuture<Void> add(String sessionId, Map<String, Data> attributes) {
+        Batch batch;
+        boolean full;
+        boolean stale;
+        synchronized (bufferMutex) {
+            batch = buffer;
+            batch.add(sessionId, attributes);
+            pendingBatches.put(sessionId, batch);
+            full = batch.updates.size() >= maxBatchSize;
+            stale = System.nanoTime() - batch.createdNanos > maxStalenessNanos;
+        }
+        if (shutdown) {
+            flush();
+        } else if (full || stale) {
+            requestFlush();
+            if (stale) {
+                batch.awaitFlushed();
+            }
+        }
+        return batch.flushed;
+    }
+
+    /**
+     * Waits until the writes of the session buffered so far are applied. If they
+     * are still in the buffer, the buffer is flushed right away.
+     *
+     * @param sessionId the session id
+     */
+    void awaitPendingWrites(String sessionId) {
+        Batch batch = pendingBatches.get(sessionId);
+        if (batch == null) {
+            return;
+        }
+        boolean buffered;
+        synchronized (bufferMutex) {
+            buffered = batch == buffer;
+        }
+        if (buffered) {
+            requestFlush();
+        }
+        batch.awaitFlushed();
+    }
+
+    /**
+     * Stops the periodic flushes and sends the buffered writes. Later writes are
+     * sent by the writing thread.
+     */
+    void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warning("Timed out while waiting for the deferred session writes to be sent.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        synchronized (flushMutex) {
+            Batch batch;
+            synchronized (bufferMutex) {
+                if (buffer.updates.isEmpty()) {
+                    return;
+                }
+                batch = buffer;
+                buffer = new Batch();
+            }
+            try {
+                send(batch.updates);
+            } catch (Exception e) {
+                LOGGER.warning("Failed to write " + batch.updates.size() + " sessions: " + e.getMessage(), e);
+                batch.flushed.completeExceptionally(e);
+            } finally {
+                for (String sessionId : batch.updates.keySet()) {
+                    pendingBatches.remove(sessionId, batch);
+                }
+                batch.flushed.complete(null);
+            }
+        }
+    }
+
+    private void send(Map<String, Map<String, Data>> updates) {
+        Map<Member, Map<String, Map<String, Data>>> updatesByOwner = new HashMap<>();
+        for (Map.Entry<String, Map<String, Data>> update : updates.entrySet()) {
+            Member owner = clusteredSessionService.getPartitionOwner(update.getKey());
+            updatesByOwner.computeIfAbsent(owner, member -> new HashMap<>()).put(update.getKey(), update.getValue());
+        }
+        List<CompletableFuture<Map<String, Object>>> writes = new ArrayList<>(updatesByOwner.size());
+        for (Map<String, Map<String, Data>> ownerUpdates : updatesByOwner.values()) {
+            SessionBatchUpdateEntryProcessor batchUpdate = new SessionBatchUpdateEntryProcessor(ownerUpdates);
+            batchUpdate.setPackedState(clusteredSessionService.isPackedSessionState());
+            writes.add(clusteredSessionService.executeOnKeysAsync(ownerUpdates.keySet(), batchUpdate).toCompletableFuture());
+        }
+        for (CompletableFuture<Map<String, Object>> write : writes) {
+            write.join();
+        }
+    }
+
+    /**
+     * The merged writes of the sessions buffered between two flushes.
+     */
+    private static final class Batch {
+
+        private final Map<String, Map<String, Data>> updates = new HashMap<>();
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+        private long createdNanos;
+
+        private void add(String sessionId, Map<String, Data> attributes) {
+            if (updates.isEmpty()) {
+                createdNanos = System.nanoTime();
+            }
+            updates.computeIfAbsent(sessionId, id -> new HashMap<>()).putAll(attributes);
+        }
+
+        /**
+         * Waits for the batch to be sent. A failure to send it was logged already.
+         */
+        private void awaitFlushed() {
+            flushed.exceptionally(e -> null).join();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+/**
+ * Finds a single cookie in the value of a {@code Cookie} request header, without
+ * parsing the other cookies of the header. Only the value of the cookie found is
+ * allocated.
+ * <p>
+ * The cookies are separated by semicolons, whitespace around the names and
+ * values is ignored, and a value enclosed in double quotes is returned without
+ * them. Names are compared ignoring case, like WebFilter does with the cookies
+ * parsed by the container.
+ */
+public final class CookieHeader {
+
+    private CookieHeader() {
+    }
+
+    /**
+     * Finds the value of a cookie.
+     *
+     * @param header the value of a Cookie header, can be null
+     * @param name   the name of the cookie
+     * @return the value of the first cookie with the given name, or null if the header does not contain it
+     */
+    public static String findValue(String header, String name) {
+        if (header == null) {
+            return null;
+        }
+        int length = header.length();
+        int start = 0;
+        while (start < length) {
+            int end = header.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+            int nameStart = skipWhitespace(header, start, end);
+            if (header.regionMatches(true, nameStart, name, 0, name.length())) {
+                int separator = skipWhitespace(header, nameStart + name.length(), end);
+                if (separator < end && header.charAt(separator) == '=') {
+                    return value(header, separator + 1, end);
+                }
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static String value(String header, int start, int end) {
+        int valueStart = skipWhitespace(header, start, end);
+        int valueEnd = end;
+        while (valueEnd > valueStart && isWhitespace(header.charAt(valueEnd - 1))) {
+            valueEnd--;
+        }
+        if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+            valueStart++;
+            valueEnd--;
+        }
+        return header.substring(valueStart, valueEnd);
+    }
+
+    private static int skipWhitespace(String header, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(header.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
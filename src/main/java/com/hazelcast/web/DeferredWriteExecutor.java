@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.instance.impl.OutOfMemoryErrorDispatcher;
+import com.hazelcast.internal.util.HashUtil;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the deferred session writes to the cluster on background threads, so
+ * the request thread does not wait for the cluster.
+ * <p>
+ * Each session is bound to one single threaded stripe, so the writes of a
+ * session are applied in the order they are submitted. When the queue of a
+ * stripe is full, the submitting thread waits for room in it, which slows the
+ * requests down to the speed of the cluster. Once the executor is shut down,
+ * the write is sent by the submitting thread after the previous write of its
+ * session is done. Reads of a session first wait for its pending writes, see
+ * {@link #awaitPendingWrites(String)}.
+ */
+final class DeferredWriteExecutor {
+
+    private static final ILogger LOGGER = Logger.getLogger(DeferredWriteExecutor.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final ClusteredSessionService clusteredSessionService;
+    private final ThreadPoolExecutor[] stripes;
+
+    /**
+     * The last submitted write of each session with pending writes. Since the
+     * writes of a session are applied in order, it completes after all others.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> pendingWrites = new ConcurrentHashMap<>();
+
+    DeferredWriteExecutor(ClusteredSessionService clusteredSessionService, int threadCount, int queueCapacity) {
+        this.clusteredSessionService = clusteredSessionService;
+        this.stripes = new ThreadPoolExecutor[threadCount];
+        int stripeQueueCapacity = Math.max(1, queueCapacity / threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            String threadName = ".hazelcast-wm.deferredWrite-" + i;
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(stripeQueueCapacity), runnable -> newThread(runnable, threadName),
+                    DeferredWriteExecutor::awaitRoom);
+        }
+    }
+
+    /**
+     * Submits the given update of the session to be sent to the cluster.
+     *
+     * @param sessionId     the session id
+     * @param sessionUpdate the update with the already serialized attributes
+     * @return a future completing when the update is applied, exceptionally if it could not be applied
+     */
+    CompletableFuture<Void> execute(String sessionId, SessionUpdateEntryProcessor sessionUpdate) {
+        CompletableFuture<Void> write = new CompletableFuture<>();
+        CompletableFuture<Void> previousWrite = pendingWrites.put(sessionId, write);
+        try {
+            stripes[HashUtil.hashToIndex(sessionId.hashCode(), stripes.length)]
+                    .execute(() -> write(sessionId, sessionUpdate, write));
+        } catch (RejectedExecutionException e) {
+            if (previousWrite != null) {
+                awaitQuietly(previousWrite);
+            }
+            write(sessionId, sessionUpdate, write);
+        }
+        return write;
+    }
+
+    /**
+     * Waits until the writes of the session submitted so far are applied.
+     *
+     * @param sessionId the session id
+     */
+    void awaitPendingWrites(String sessionId) {
+        CompletableFuture<Void> write = pendingWrites.get(sessionId);
+        if (write != null) {
+            awaitQuietly(write);
+        }
+    }
+
+    /**
+     * Stops accepting writes and waits for the pending ones to be applied.
+     */
+    void shutdown() {
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            for (ThreadPoolExecutor stripe : stripes) {
+                long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+                if (!stripe.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warning("Timed out while sending " + stripe.getQueue().size() + " deferred session writes.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(String sessionId, SessionUpdateEntryProcessor sessionUpdate, CompletableFuture<Void> write) {
+        try {
+            clusteredSessionService.executeOnKey(sessionId, sessionUpdate);
+        } catch (Exception e) {
+            LOGGER.warning("Failed to write session with ID [" + sessionId + "]: " + e.getMessage(), e);
+            write.completeExceptionally(e);
+        } finally {
+            pendingWrites.remove(sessionId, write);
+            write.complete(null);
+        }
+    }
+
+    /**
+     * Waits for a write, which failed already if it completed exceptionally, as
+     * the failure was logged.
+     */
+    private static void awaitQuietly(CompletableFuture<Void> write) {
+        write.exceptionally(e -> null).join();
+    }
+
+    /**
+     * Handles a write rejected by a stripe whose queue is full by waiting for
+     * room in the queue, so the write is still applied by the stripe, after the
+     * previous writes of its session and before the next ones.
+     */
+    private static void awaitRoom(Runnable write, ThreadPoolExecutor stripe) {
+        if (stripe.isShutdown()) {
+            throw new RejectedExecutionException("Deferred writes are shut down");
+        }
+        try {
+            stripe.getQueue().put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to queue a deferred write", e);
+        }
+        // the stripe may have stopped before it could take the write from the queue
+        if (stripe.isShutdown() && stripe.remove(write)) {
+            throw new RejectedExecutionException("Deferred writes are shut down");
+        }
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        Thread thread = new Thread(() -> {
+            try {
+                runnable.run();
+            } catch (OutOfMemoryError e) {
+                OutOfMemoryErrorDispatcher.onOutOfMemory(e);
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
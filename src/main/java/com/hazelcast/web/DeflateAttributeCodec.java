@@ -0,0 +1,93 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link AttributeCodec} compressing attributes with {@link Deflater}. The
+ * encoded attribute starts with the length of the serialized attribute, which
+ * the inflated attribute must have. The buffer the attribute is inflated into
+ * grows with the inflated bytes up to that length, so a corrupted length does
+ * not allocate more memory than the attribute inflates to.
+ */
+public class DeflateAttributeCodec implements AttributeCodec {
+
+    private static final int BUFFER_SIZE = 4096;
+    // the initial inflate buffer is sized for this compression ratio, then doubled as needed
+    private static final int INITIAL_COMPRESSION_RATIO = 4;
+
+    @Override
+    public byte[] encode(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(bytes.length, BUFFER_SIZE));
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array(), 0, Integer.BYTES);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decode(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            if (bytes.length < Integer.BYTES) {
+                throw new HazelcastSerializationException("Encoded attribute is truncated");
+            }
+            int decodedLength = ByteBuffer.wrap(bytes).getInt();
+            if (decodedLength < 0) {
+                throw new HazelcastSerializationException("Encoded attribute is corrupted, its length is " + decodedLength);
+            }
+            inflater.setInput(bytes, Integer.BYTES, bytes.length - Integer.BYTES);
+            byte[] decoded = new byte[Math.min(decodedLength, Math.max(BUFFER_SIZE, INITIAL_COMPRESSION_RATIO * bytes.length))];
+            int offset = 0;
+            while (offset < decodedLength && !inflater.finished()) {
+                if (offset == decoded.length) {
+                    decoded = Arrays.copyOf(decoded, (int) Math.min(decodedLength, 2L * decoded.length));
+                }
+                int length = inflater.inflate(decoded, offset, decoded.length - offset);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += length;
+            }
+            if (offset != decodedLength) {
+                throw new HazelcastSerializationException("Encoded attribute is truncated");
+            }
+            return decoded;
+        } catch (DataFormatException e) {
+            throw new HazelcastSerializationException("Encoded attribute is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
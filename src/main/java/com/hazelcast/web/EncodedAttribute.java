@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+
+/**
+ * Session attribute whose serialized form was encoded by an {@link AttributeCodec}.
+ * It is stored in the {@link SessionState} in place of the serialized attribute.
+ */
+final class EncodedAttribute implements IdentifiedDataSerializable {
+
+    private String codecClassName;
+    private byte[] bytes;
+
+    EncodedAttribute() {
+    }
+
+    EncodedAttribute(String codecClassName, byte[] bytes) {
+        this.codecClassName = codecClassName;
+        this.bytes = bytes;
+    }
+
+    String getCodecClassName() {
+        return codecClassName;
+    }
+
+    byte[] getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WebDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return WebDataSerializerHook.ENCODED_ATTRIBUTE;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(codecClassName);
+        out.writeByteArray(bytes);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        codecClassName = in.readString();
+        bytes = in.readByteArray();
+    }
+}
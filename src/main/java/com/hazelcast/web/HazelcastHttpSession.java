@@ -15,56 +15,110 @@
 
 package com.hazelcast.web;
 
+import com.hazelcast.internal.serialization.Data;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.nio.serialization.HazelcastSerializationException;
 
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.http.HttpSession;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 /**
  * HazelcastHttpSession is HttpSession implementation based on Hazelcast Imap.
  * It contains the methods used to get, put, manage the current state of the HttpSession.
  */
+@SuppressWarnings("checkstyle:methodcount")
 public class HazelcastHttpSession implements HttpSession {
     private static final ILogger LOGGER = Logger.getLogger(HazelcastHttpSession.class);
 
     volatile String invalidatedOriginalSessionId;
 
+    // the state of the session in the LocalSessionRegistry of the filter, which
+    // keeps it here rather than in an entry of its own for each session
+    volatile String registeredOriginalSessionId;
+    volatile long lastLocalAccessMillis;
+    volatile boolean unregistered;
+    volatile boolean detached;
+
     private final WebFilter webFilter;
     private volatile boolean valid = true;
     private final String id;
-    private final HttpSession originalSession;
-    private final Map<String, LocalCacheEntry> localCache = new ConcurrentHashMap<>();
+    private volatile HttpSession originalSession;
+    private final Map<String, LocalCacheEntry> localCache = new LocalCache();
+    // attribute updates sent to the cluster but not completed yet, when deferredWrite is false
+    private final Set<CompletableFuture<Void>> pendingWrites = ConcurrentHashMap.newKeySet();
+    // the last write sent for each attribute with writes in flight, only its completion updates the entry
+    private final Map<String, CompletionStage<?>> latestWrites = new ConcurrentHashMap<>();
+    // the requests using the session, see acquire
+    private final AtomicInteger requests = new AtomicInteger();
+    // true once the session was evicted from the local sessions
+    private volatile boolean evicted;
 
     private final boolean stickySession;
     private final boolean deferredWrite;
+    private final boolean useNearCache;
+    // true when the attributes returned by getAttribute are checked for changes at the end of the request
+    private final boolean trackMutations;
+    // the session state the local cache was last refreshed from, when useNearCache is true
+    private volatile SessionState nearCachedState;
+    // the version of the session state the local cache was last refreshed from, when useNearCache is false
+    private volatile long version = -1;
+    // true when only the hot attributes were fetched when the local cache was built
+    private volatile boolean partiallyLoaded;
     // true when session is fetched from local cache
     private volatile boolean keepRemoteActive = true;
     // only true if session is created first time in the cluster
     private volatile boolean clusterWideNew;
     private final Set<String> transientAttributes;
+    private final Set<String> hotAttributes;
 
     public HazelcastHttpSession(WebFilter webFilter, final String sessionId, final HttpSession originalSession,
                                 final boolean deferredWrite, final boolean stickySession,
                                 final Set<String> transientAttributes) {
+        this(webFilter, sessionId, originalSession, deferredWrite, stickySession, transientAttributes,
+                Collections.emptySet());
+    }
+
+    public HazelcastHttpSession(WebFilter webFilter, final String sessionId, final HttpSession originalSession,
+                                final boolean deferredWrite, final boolean stickySession,
+                                final Set<String> transientAttributes, final Set<String> hotAttributes) {
         this.webFilter = webFilter;
         this.id = sessionId;
         this.originalSession = originalSession;
         this.deferredWrite = deferredWrite;
         this.stickySession = stickySession;
         this.transientAttributes = transientAttributes;
+        this.hotAttributes = hotAttributes;
+        this.useNearCache = webFilter.getClusteredSessionService().isUseNearCache();
+        this.trackMutations = webFilter.getClusteredSessionService().isTrackMutations();
 
         buildLocalCache();
     }
 
+    /**
+     * Binds the session to a new original session, when the previous one expired
+     * while the session still exists in the cluster. The cached attributes are
+     * kept, and only brought up to date with the changes made by other instances.
+     *
+     * @param originalSession the new original session
+     */
+    void rebind(HttpSession originalSession) {
+        this.originalSession = originalSession;
+        revalidate();
+    }
+
     public HttpSession getOriginalSession() {
         return originalSession;
     }
@@ -93,9 +147,7 @@ public class HazelcastHttpSession implements HttpSession {
         entry.setReload(false);
         if (!deferredWrite && !transientEntry) {
             try {
-                webFilter.getClusteredSessionService().setAttribute(id, name, value);
-                setKeepRemoteActive(false);
-                entry.setDirty(false);
+                trackWrite(name, entry, webFilter.getClusteredSessionService().setAttributeAsync(id, name, value));
             } catch (HazelcastSerializationException e) {
                 LOGGER.warning("Failed to serialize attribute [" + name + "]:" + e.getMessage(), e);
             } catch (Exception e) {
@@ -107,7 +159,9 @@ public class HazelcastHttpSession implements HttpSession {
     public Object getAttribute(final String name) {
         LocalCacheEntry cacheEntry = localCache.get(name);
         Object value;
-        if (cacheEntry == null || cacheEntry.isReload()) {
+        // a serialized value evicted from off-heap memory before it was deserialized is reloaded too
+        if (cacheEntry == null || cacheEntry.isReload()
+                || !cacheEntry.deserialize(webFilter.getClusteredSessionService()::toObject)) {
             try {
                 value = webFilter.getClusteredSessionService().getAttribute(id, name);
                 setKeepRemoteActive(false);
@@ -126,7 +180,33 @@ public class HazelcastHttpSession implements HttpSession {
         if (cacheEntry.isRemoved()) {
             return null;
         }
-        return cacheEntry.getValue();
+        Object cachedValue = cacheEntry.getValue(webFilter.getClusteredSessionService()::toObject);
+        if (trackMutations && cachedValue != null) {
+            trackAccess(name, cacheEntry, cachedValue);
+        }
+        return cachedValue;
+    }
+
+    /**
+     * Marks an attribute returned to the application, so it is checked for
+     * changes made to the attribute object on the deferred write. The
+     * serialized value the cluster holds is the fingerprint of the unchanged
+     * value; it is recorded here if the value was not read in its serialized form.
+     */
+    private void trackAccess(String name, LocalCacheEntry cacheEntry, Object value) {
+        if (cacheEntry.isTransient() || cacheEntry == WebFilter.NULL_ENTRY) {
+            return;
+        }
+        if (!cacheEntry.isDirty() && cacheEntry.getClusterValue() == null) {
+            try {
+                ClusteredSessionService clusteredSessionService = webFilter.getClusteredSessionService();
+                cacheEntry.setClusterValue(clusteredSessionService.toLocalData(clusteredSessionService.toData(value)));
+            } catch (HazelcastSerializationException e) {
+                LOGGER.warning("Failed to serialize attribute [" + name + "]:" + e.getMessage(), e);
+                return;
+            }
+        }
+        cacheEntry.setAccessed(true);
     }
 
     public Enumeration<String> getAttributeNames() {
@@ -185,6 +265,11 @@ public class HazelcastHttpSession implements HttpSession {
 
     public void removeAttribute(final String name) {
         LocalCacheEntry entry = localCache.get(name);
+        if (entry == null && deferredWrite && partiallyLoaded) {
+            // the attribute may exist in the cluster without having been fetched
+            entry = new LocalCacheEntry(transientAttributes.contains(name));
+            localCache.put(name, entry);
+        }
         if (entry != null && entry != WebFilter.NULL_ENTRY) {
             entry.setValue(null);
             entry.setRemoved(true);
@@ -193,17 +278,45 @@ public class HazelcastHttpSession implements HttpSession {
         }
         if (!deferredWrite) {
             try {
-                webFilter.getClusteredSessionService().deleteAttribute(id, name);
-                setKeepRemoteActive(false);
-                if (entry != null) {
-                    entry.setDirty(false);
-                }
+                trackWrite(name, entry, webFilter.getClusteredSessionService().setAttributeAsync(id, name, null));
             } catch (Exception e) {
                 LOGGER.warning("Unexpected error occurred.", e);
             }
         }
     }
 
+    /**
+     * Tracks an attribute update sent to the cluster. The entry stays dirty
+     * until the last update sent for the attribute is applied.
+     */
+    private void trackWrite(String name, LocalCacheEntry entry, CompletionStage<Object> write) {
+        latestWrites.put(name, write);
+        CompletableFuture<Void> pendingWrite = write.toCompletableFuture().handle((result, e) -> {
+            boolean latest = latestWrites.remove(name, write);
+            if (e != null) {
+                LOGGER.warning("Unexpected error occurred.", e);
+                return null;
+            }
+            setKeepRemoteActive(false);
+            if (entry != null && latest) {
+                entry.setDirty(false);
+            }
+            return null;
+        });
+        pendingWrites.add(pendingWrite);
+        pendingWrite.thenRun(() -> pendingWrites.remove(pendingWrite));
+    }
+
+    /**
+     * Waits for the attribute updates which were sent to the cluster asynchronously.
+     * Failed updates are logged when they complete, so this method does not throw.
+     */
+    void awaitPendingWrites() {
+        for (CompletableFuture<Void> pendingWrite : pendingWrites) {
+            pendingWrite.join();
+        }
+    }
+
     public void removeValue(final String name) {
         removeAttribute(name);
     }
@@ -240,6 +353,45 @@ public class HazelcastHttpSession implements HttpSession {
     void destroy(boolean invalidate) {
         valid = false;
         webFilter.getClusteredSessionService().deleteSession(id, invalidate);
+        releaseOffHeap();
+    }
+
+    /**
+     * Records that a request uses the session, until it calls {@link #release()}.
+     */
+    void acquire() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Records that a request does not use the session anymore.
+     */
+    void release() {
+        requests.decrementAndGet();
+        releaseOffHeapIfEvicted();
+    }
+
+    /**
+     * Frees the off-heap memory of the cached attributes once no request uses the
+     * session anymore, after it was evicted from the local sessions, since the
+     * session is rebuilt from the cluster when it is used again. A request which
+     * found the session just before it was evicted reloads the attributes it reads.
+     */
+    void evict() {
+        evicted = true;
+        releaseOffHeapIfEvicted();
+    }
+
+    private void releaseOffHeapIfEvicted() {
+        if (evicted && requests.get() == 0) {
+            releaseOffHeap();
+        }
+    }
+
+    private void releaseOffHeap() {
+        for (LocalCacheEntry entry : localCache.values()) {
+            entry.releaseOffHeap();
+        }
     }
 
     public boolean isValid() {
@@ -247,47 +399,58 @@ public class HazelcastHttpSession implements HttpSession {
     }
 
     private void buildLocalCache() {
-        Set<Map.Entry<String, Object>> entrySet = null;
+        if (useNearCache) {
+            reloadFromNearCache();
+        } else if (hotAttributes.isEmpty()) {
+            reloadChanges();
+        } else {
+            loadHotAttributes();
+        }
+    }
+
+    /**
+     * Fetches only the hot attributes, with a single call. The other attributes
+     * are fetched when they are first read.
+     */
+    private void loadHotAttributes() {
+        SessionState hotState;
         try {
-            entrySet = webFilter.getClusteredSessionService().getAttributes(id);
+            hotState = webFilter.getClusteredSessionService().getSessionAttributes(id, hotAttributes);
             setKeepRemoteActive(false);
         } catch (Exception e) {
+            if (LOGGER.isFinestEnabled()) {
+                LOGGER.log(Level.FINEST, "session could not be load so you might be dealing with stale data", e);
+            }
             return;
         }
-        if (entrySet != null) {
-            for (Map.Entry<String, Object> entry : entrySet) {
-                String attributeKey = entry.getKey();
-                LocalCacheEntry cacheEntry = localCache.computeIfAbsent(attributeKey,
-                        k -> new LocalCacheEntry(transientAttributes.contains(k)));
-                if (LOGGER.isFinestEnabled()) {
-                    LOGGER.log(Level.FINEST, "Storing " + attributeKey + " on session " + id);
-                }
-                cacheEntry.setValue(entry.getValue());
-                cacheEntry.setDirty(false);
+        if (hotState != null) {
+            for (Map.Entry<String, Data> attribute : hotState.getAttributes().entrySet()) {
+                reloadEntry(attribute.getKey(), attribute.getValue());
             }
+            version = hotState.getVersion();
+            partiallyLoaded = true;
         }
     }
 
     void sessionDeferredWrite() {
-        if (sessionChanged() || isNew()) {
+        if (sessionChanged() || isNew() || trackMutations) {
+            ClusteredSessionService clusteredSessionService = webFilter.getClusteredSessionService();
             Map<String, Object> updates = new HashMap<>();
-
-            for (Map.Entry<String, LocalCacheEntry> entry : localCache.entrySet()) {
-                LocalCacheEntry cacheEntry = entry.getValue();
-
-                if (cacheEntry.isDirty() && !cacheEntry.isTransient()) {
-                    if (cacheEntry.isRemoved()) {
-                        updates.put(entry.getKey(), null);
-                    } else {
-                        updates.put(entry.getKey(), cacheEntry.getValue());
+            Map<String, Object> writtenValues = new HashMap<>();
+            try {
+                int suppressedWrites = collectUpdates(clusteredSessionService, updates, writtenValues);
+                clusteredSessionService.recordSuppressedWrites(suppressedWrites);
+                if (!updates.isEmpty() || isNew()) {
+                    CompletionStage<Void> write = clusteredSessionService.updateAttributes(id, updates);
+                    setKeepRemoteActive(false);
+                    for (Map.Entry<String, Object> update : updates.entrySet()) {
+                        LocalCacheEntry cacheEntry = localCache.get(update.getKey());
+                        if (cacheEntry != null) {
+                            recordWrite(update.getKey(), cacheEntry, write, writtenValues.get(update.getKey()),
+                                    (Data) update.getValue());
+                        }
                     }
-                    cacheEntry.setDirty(false);
                 }
-            }
-
-            try {
-                webFilter.getClusteredSessionService().updateAttributes(id, updates);
-                setKeepRemoteActive(false);
             } catch (HazelcastSerializationException e) {
                 LOGGER.warning("Failed to serialize session with ID [" + id + "]:" + e.getMessage(), e);
             } catch (Exception e) {
@@ -296,16 +459,81 @@ public class HazelcastHttpSession implements HttpSession {
         }
     }
 
+    /**
+     * Records the serialized value of a deferred write in the entry once the
+     * cluster applied it, unless the attribute was written again meanwhile.
+     * Until then the value the cluster holds is not known, so the next deferred
+     * write does not compare with it, and it stays unknown if the write failed.
+     */
+    private void recordWrite(String name, LocalCacheEntry cacheEntry, CompletionStage<Void> write, Object writtenValue,
+                             Data serializedValue) {
+        cacheEntry.setClusterValue(null);
+        latestWrites.put(name, write);
+        write.whenComplete((result, e) -> {
+            if (latestWrites.remove(name, write) && e == null) {
+                ClusteredSessionService clusteredSessionService = webFilter.getClusteredSessionService();
+                cacheEntry.setWritten(writtenValue, clusteredSessionService.toLocalData(serializedValue));
+                // the session may have been evicted while the write was in flight
+                releaseOffHeapIfEvicted();
+            }
+        });
+    }
+
+    /**
+     * Serializes the values of the dirty entries, and of the entries returned by
+     * getAttribute when mutations are tracked. Values whose serialized form
+     * equals the one the cluster already holds, as when an attribute is set
+     * again with an equal value or an attribute object was not changed, are
+     * not written.
+     *
+     * @return the number of values which are not written since they did not change
+     */
+    private int collectUpdates(ClusteredSessionService clusteredSessionService, Map<String, Object> updates,
+                               Map<String, Object> writtenValues) {
+        int suppressedWrites = 0;
+        for (Map.Entry<String, LocalCacheEntry> entry : localCache.entrySet()) {
+            LocalCacheEntry cacheEntry = entry.getValue();
+            // an accessed attribute object may have been changed by the application
+            boolean accessed = cacheEntry.isAccessed() && !cacheEntry.isRemoved();
+            cacheEntry.setAccessed(false);
+            boolean dirty = cacheEntry.isDirty();
+            if (cacheEntry.isTransient() || !dirty && !accessed) {
+                continue;
+            }
+            cacheEntry.setDirty(false);
+            if (cacheEntry.isRemoved()) {
+                updates.put(entry.getKey(), null);
+                continue;
+            }
+            Object value = cacheEntry.getValue();
+            // a value which was not replaced nor accessed is written with its original serialized form
+            Data serializedValue = accessed ? null : cacheEntry.getSerializedValue();
+            if (serializedValue == null) {
+                serializedValue = clusteredSessionService.toData(value);
+            }
+            if (serializedValue != null && serializedValue.equals(cacheEntry.getClusterValue())) {
+                if (dirty) {
+                    suppressedWrites++;
+                }
+            } else {
+                updates.put(entry.getKey(), serializedValue);
+                writtenValues.put(entry.getKey(), value);
+            }
+        }
+        return suppressedWrites;
+    }
+
     private Set<String> selectKeys() {
         Set<String> keys = new HashSet<>();
         if (!deferredWrite) {
             Set<String> attributeNames = null;
+            awaitPendingWrites();
             try {
                 attributeNames = webFilter.getClusteredSessionService().getAttributeNames(id);
                 setKeepRemoteActive(false);
             } catch (Exception ignored) {
                 for (Map.Entry<String, LocalCacheEntry> entry : localCache.entrySet()) {
-                    if (!entry.getValue().isRemoved() && entry.getValue().getValue() != null) {
+                    if (!entry.getValue().isRemoved() && entry.getValue().hasValue()) {
                         keys.add(entry.getKey());
                     }
                 }
@@ -314,15 +542,35 @@ public class HazelcastHttpSession implements HttpSession {
                 keys.addAll(attributeNames);
             }
         } else {
+            if (partiallyLoaded) {
+                // the attributes which were not fetched yet are only known by the cluster
+                addClusterAttributeNames(keys);
+            }
             for (Map.Entry<String, LocalCacheEntry> entry : localCache.entrySet()) {
-                if (!entry.getValue().isRemoved() && entry.getValue().getValue() != null) {
+                if (!entry.getValue().isRemoved() && entry.getValue().hasValue()) {
                     keys.add(entry.getKey());
+                } else if (entry.getValue().isDirty()) {
+                    keys.remove(entry.getKey());
                 }
             }
         }
         return keys;
     }
 
+    private void addClusterAttributeNames(Set<String> keys) {
+        try {
+            Set<String> attributeNames = webFilter.getClusteredSessionService().getAttributeNames(id);
+            setKeepRemoteActive(false);
+            if (attributeNames != null) {
+                keys.addAll(attributeNames);
+            }
+        } catch (Exception e) {
+            if (LOGGER.isFinestEnabled()) {
+                LOGGER.log(Level.FINEST, "session could not be load so you might be dealing with stale data", e);
+            }
+        }
+    }
+
     public void setClusterWideNew(boolean clusterWideNew) {
         this.clusterWideNew = clusterWideNew;
     }
@@ -339,6 +587,19 @@ public class HazelcastHttpSession implements HttpSession {
         this.keepRemoteActive = keepRemoteActive;
     }
 
+    /**
+     * Brings the cached attributes up to date at the start of a request when
+     * sessions are not sticky. Only the attributes changed by other instances
+     * are fetched, with a single call, or read from the Near Cache. If that
+     * fails, the attributes are marked to be reloaded one by one.
+     */
+    void revalidate() {
+        boolean reloaded = useNearCache ? reloadFromNearCache() : reloadChanges();
+        if (!reloaded) {
+            updateReloadFlag();
+        }
+    }
+
     public void updateReloadFlag() {
         for (Map.Entry<String, LocalCacheEntry> entry : localCache.entrySet()) {
             if (!entry.getValue().isDirty()) {
@@ -347,13 +608,106 @@ public class HazelcastHttpSession implements HttpSession {
         }
     }
 
+    /**
+     * Refreshes the cached attributes which changed since the session state was
+     * last read from the Near Cache. As the Near Cache is only invalidated when
+     * the session is updated, the state is usually read locally and the same as
+     * the last one, in which case nothing is deserialized. Otherwise only the
+     * attributes whose serialized value changed are deserialized, and cached
+     * attributes missing from the state are removed. Dirty and transient
+     * attributes are kept.
+     *
+     * @return {@code false} if the session state could not be read
+     */
+    private boolean reloadFromNearCache() {
+        SessionState sessionState;
+        try {
+            sessionState = webFilter.getClusteredSessionService().getSessionState(id);
+        } catch (Exception e) {
+            if (LOGGER.isFinestEnabled()) {
+                LOGGER.log(Level.FINEST, "session could not be load so you might be dealing with stale data", e);
+            }
+            return false;
+        }
+        SessionState previousState = nearCachedState;
+        nearCachedState = sessionState;
+        if (sessionState != previousState) {
+            reloadChangedEntries(previousState, sessionState);
+        }
+        return true;
+    }
+
+    private void reloadChangedEntries(SessionState previousState, SessionState sessionState) {
+        Map<String, Data> previous = previousState == null ? Collections.emptyMap() : previousState.getAttributes();
+        Map<String, Data> current = sessionState == null ? Collections.emptyMap() : sessionState.getAttributes();
+        for (Map.Entry<String, Data> attribute : current.entrySet()) {
+            String name = attribute.getKey();
+            if (!localCache.containsKey(name) || !Objects.equals(attribute.getValue(), previous.get(name))) {
+                reloadEntry(name, attribute.getValue());
+            }
+        }
+        for (String name : localCache.keySet()) {
+            if (!current.containsKey(name)) {
+                reloadEntry(name, null);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the cached attributes which changed since the version of the
+     * session state they were last refreshed from. The cluster only returns the
+     * changed attributes, or nothing if the version did not change.
+     *
+     * @return {@code false} if the changes could not be read
+     */
+    private boolean reloadChanges() {
+        SessionState changes;
+        try {
+            changes = webFilter.getClusteredSessionService().getSessionChanges(id, version);
+            setKeepRemoteActive(false);
+        } catch (Exception e) {
+            if (LOGGER.isFinestEnabled()) {
+                LOGGER.log(Level.FINEST, "session could not be load so you might be dealing with stale data", e);
+            }
+            return false;
+        }
+        if (changes == null) {
+            return false;
+        }
+        if (changes.getVersion() != version) {
+            for (Map.Entry<String, Data> attribute : changes.getAttributes().entrySet()) {
+                reloadEntry(attribute.getKey(), attribute.getValue());
+            }
+            if (changes.isCompleteSince(version)) {
+                for (String name : localCache.keySet()) {
+                    if (!changes.getAttributes().containsKey(name)) {
+                        reloadEntry(name, null);
+                    }
+                }
+            }
+            version = changes.getVersion();
+        }
+        return true;
+    }
+
+    private void reloadEntry(String name, Data value) {
+        LocalCacheEntry cacheEntry = localCache.computeIfAbsent(name, k -> new LocalCacheEntry(transientAttributes.contains(k)));
+        if (cacheEntry.isDirty() || cacheEntry.isTransient() || cacheEntry == WebFilter.NULL_ENTRY) {
+            return;
+        }
+        cacheEntry.setSerializedValue(webFilter.getClusteredSessionService().toLocalData(value));
+        cacheEntry.setRemoved(value == null);
+        cacheEntry.setReload(false);
+    }
+
     /**
      *  To prevent the eviction of an active session from the distributed map,
-     *  reset the idle time for this session on cluster.
+     *  reset the idle time for this session on cluster. The idle time is reset
+     *  in the background, together with the other sessions used meanwhile.
      */
     public void keepRemoteActive() {
         try {
-            webFilter.getClusteredSessionService().getSessionAsync(id);
+            webFilter.getClusteredSessionService().touchSession(id);
             setKeepRemoteActive(false);
         } catch (Exception e) {
             LOGGER.warning("Failed to reset the idle-time on cluster for the session with ID [" + id + "]:"
@@ -19,13 +19,17 @@ import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.client.config.ClientConfig;
 import com.hazelcast.client.config.XmlClientConfigBuilder;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.ListenerConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.UrlXmlConfig;
 import com.hazelcast.config.XmlConfigBuilder;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.properties.ClusterProperty;
 import com.hazelcast.web.listener.ClientLifecycleListener;
 import com.hazelcast.web.listener.ServerLifecycleListener;
 
@@ -73,7 +77,18 @@ final class HazelcastInstanceLoader {
             }
         }
 
-        config.getMapConfig(filterConfig.getMapName()).setMaxIdleSeconds(filterConfig.getSessionTtlSeconds());
+        MapConfig mapConfig = config.getMapConfig(filterConfig.getMapName());
+        mapConfig.setMaxIdleSeconds(filterConfig.getSessionTtlSeconds());
+        if (filterConfig.getInMemoryFormat() != null) {
+            mapConfig.setInMemoryFormat(filterConfig.getInMemoryFormat());
+        }
+        if (filterConfig.isUseNearCache() && mapConfig.getNearCacheConfig() == null) {
+            // sessions owned by this member are cached too, and invalidations are not delayed by batching
+            mapConfig.setNearCacheConfig(createNearCacheConfig(filterConfig).setCacheLocalEntries(true));
+            if (config.getProperty(ClusterProperty.MAP_INVALIDATION_MESSAGE_BATCH_ENABLED.getName()) == null) {
+                config.setProperty(ClusterProperty.MAP_INVALIDATION_MESSAGE_BATCH_ENABLED.getName(), "false");
+            }
+        }
         config.addListenerConfig(new ListenerConfig(new ServerLifecycleListener(sessionService)));
 
         return Hazelcast.newHazelcastInstance(config);
@@ -107,11 +122,23 @@ final class HazelcastInstanceLoader {
                     .setMaxBackoffMillis(initialBackoffMillis * (int) multiplier);
         }
 
+        if (filterConfig.isUseNearCache() && clientConfig.getNearCacheConfig(filterConfig.getMapName()) == null) {
+            clientConfig.addNearCacheConfig(createNearCacheConfig(filterConfig));
+        }
         clientConfig.addListenerConfig(new ListenerConfig(new ClientLifecycleListener(sessionService)));
 
         return HazelcastClient.newHazelcastClient(clientConfig);
     }
 
+    /**
+     * The session states are only read by WebFilter, so they are cached as objects.
+     */
+    private static NearCacheConfig createNearCacheConfig(WebFilterConfig filterConfig) {
+        return new NearCacheConfig(filterConfig.getMapName())
+                .setInMemoryFormat(InMemoryFormat.OBJECT)
+                .setInvalidateOnChange(true);
+    }
+
     private static HazelcastInstance loadExistingInstance(ClusteredSessionService sessionService, String instanceName)
             throws ServletException {
 
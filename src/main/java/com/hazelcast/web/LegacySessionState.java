@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.nio.IOUtil;
+import com.hazelcast.nio.ObjectDataInput;
+
+import java.io.IOException;
+
+/**
+ * Reads a {@link SessionState} written with the {@link WebDataSerializerHook#SESSION_STATE}
+ * class id, in the form used before the states were versioned: the attribute count,
+ * then the name and value of each attribute.
+ * <p>
+ * The state read is at version 0, as are its attributes, so a member which never
+ * saw the session loads all of it, and the next update increments the versions as
+ * usual. It is written again with the {@link WebDataSerializerHook#SESSION_STATE_V2}
+ * class id.
+ */
+final class LegacySessionState extends SessionState {
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int attCount = in.readInt();
+        for (int i = 0; i < attCount; i++) {
+            restoreAttribute(in.readString(), IOUtil.readData(in), 0);
+        }
+    }
+}
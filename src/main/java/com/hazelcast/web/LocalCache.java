@@ -0,0 +1,226 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.util.HashUtil;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The locally cached attributes of a {@link HazelcastHttpSession}.
+ * <p>
+ * Most sessions have a few attributes, so the attributes are kept in a single array
+ * of alternating names and entries instead of a {@link ConcurrentHashMap}, which
+ * needs a node per attribute and a table besides the map itself. Up to
+ * {@link #MAX_SCANNED_SIZE} attributes, the array is scanned in insertion order.
+ * Beyond that, the same array is an open addressing hash table, at most three
+ * quarters full, so the attributes are found without scanning and still without
+ * a node per attribute. The array is replaced when an attribute is added or
+ * replaced, so it is read without locking.
+ * <p>
+ * Attributes are never removed from the local cache, their entries are marked as
+ * removed instead, so this map does not support removal.
+ */
+public final class LocalCache extends AbstractMap<String, LocalCacheEntry> {
+
+    /**
+     * The number of attributes scanned in insertion order, before they are hashed.
+     */
+    public static final int MAX_SCANNED_SIZE = 32;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    // the names and the entries at the even and odd indexes; the names of a hashed
+    // table, which is longer than a scanned one, are at the slots of their hashes
+    private volatile Object[] table = EMPTY;
+    private volatile int size;
+
+    @Override
+    public LocalCacheEntry get(Object name) {
+        Object[] table = this.table;
+        int i = indexOf(table, name);
+        return i >= 0 ? (LocalCacheEntry) table[i + 1] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return get(name) != null;
+    }
+
+    @Override
+    public synchronized LocalCacheEntry put(String name, LocalCacheEntry entry) {
+        Object[] table = this.table;
+        int i = indexOf(table, name);
+        if (i >= 0) {
+            LocalCacheEntry previous = (LocalCacheEntry) table[i + 1];
+            Object[] copy = table.clone();
+            copy[i + 1] = entry;
+            this.table = copy;
+            return previous;
+        }
+        int newSize = size + 1;
+        Object[] copy;
+        if (newSize <= MAX_SCANNED_SIZE) {
+            copy = Arrays.copyOf(table, 2 * newSize);
+            i = table.length;
+        } else {
+            int capacity = isHashed(table) ? table.length / 2 : MAX_SCANNED_SIZE;
+            while (newSize > capacity - (capacity >>> 2)) {
+                capacity <<= 1;
+            }
+            copy = capacity == table.length / 2 ? table.clone() : rehash(table, capacity);
+            i = probe(copy, name);
+        }
+        copy[i] = name;
+        copy[i + 1] = entry;
+        size = newSize;
+        this.table = copy;
+        return null;
+    }
+
+    @Override
+    public LocalCacheEntry computeIfAbsent(String name, Function<? super String, ? extends LocalCacheEntry> mappingFunction) {
+        LocalCacheEntry entry = get(name);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = get(name);
+            if (entry == null) {
+                entry = mappingFunction.apply(name);
+                put(name, entry);
+            }
+            return entry;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the attributes; the returned set is a snapshot which does not see
+     * attributes added or replaced afterwards.
+     */
+    @Override
+    public Set<Map.Entry<String, LocalCacheEntry>> entrySet() {
+        return new TableEntries(table);
+    }
+
+    private static boolean isHashed(Object[] table) {
+        return table.length > 2 * MAX_SCANNED_SIZE;
+    }
+
+    private static int indexOf(Object[] table, Object name) {
+        if (isHashed(table)) {
+            int i = probe(table, name);
+            return table[i] != null ? i : -1;
+        }
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the name in a hashed table, or of the free slot where
+     * it is added. Since the table is never full, the probing ends.
+     */
+    private static int probe(Object[] table, Object name) {
+        int mask = table.length - 1;
+        int i = (HashUtil.fastIntMix(name.hashCode()) << 1) & mask;
+        while (table[i] != null && !table[i].equals(name)) {
+            i = (i + 2) & mask;
+        }
+        return i;
+    }
+
+    private static Object[] rehash(Object[] table, int capacity) {
+        Object[] hashed = new Object[2 * capacity];
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != null) {
+                int j = probe(hashed, table[i]);
+                hashed[j] = table[i];
+                hashed[j + 1] = table[i + 1];
+            }
+        }
+        return hashed;
+    }
+
+    private static final class TableEntries extends AbstractSet<Map.Entry<String, LocalCacheEntry>> {
+
+        private final Object[] table;
+
+        TableEntries(Object[] table) {
+            this.table = table;
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, LocalCacheEntry>> iterator() {
+            return new Iterator<>() {
+                private int i = next(0);
+
+                @Override
+                public boolean hasNext() {
+                    return i < table.length;
+                }
+
+                @Override
+                public Map.Entry<String, LocalCacheEntry> next() {
+                    if (i >= table.length) {
+                        throw new NoSuchElementException();
+                    }
+                    Map.Entry<String, LocalCacheEntry> entry =
+                            new SimpleImmutableEntry<>((String) table[i], (LocalCacheEntry) table[i + 1]);
+                    i = next(i + 2);
+                    return entry;
+                }
+
+                // skips the free slots of a hashed table
+                private int next(int from) {
+                    int next = from;
+                    while (next < table.length && table[next] == null) {
+                        next += 2;
+                    }
+                    return next;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != null) {
+                    size++;
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -15,19 +15,56 @@
 
 package com.hazelcast.web;
 
+import com.hazelcast.internal.serialization.Data;
+
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
 
 /**
  * LocalCacheEntry which is used store cache entries inside
  * {@link WebFilter}
+ * <p>
+ * An entry read from the cluster holds the serialized value, which is only
+ * deserialized when the value is first read. The serialized value is kept
+ * until the value is replaced, so an unchanged value does not need to be
+ * serialized again. The serialized value the cluster holds is kept even when
+ * the value is replaced, so a replacement with an equal value does not need to
+ * be written to the cluster.
+ * <p>
+ * The flags of the entry are packed into a single int, which is changed with
+ * compare-and-set, so they take four bytes per attribute and are changed
+ * without locking.
+ * <p>
+ * The value and the serialized values are guarded by the lock of the entry,
+ * since they are changed together: a written serialized value is only kept if
+ * the value was not replaced meanwhile, and the writes of a session complete on
+ * other threads than its requests. The lock takes no space in the entry and is
+ * only contended when a write completes while the attribute is accessed.
+ * <p>
+ * The serialized values may be handles of values kept by an {@link OffHeapDataStore}.
+ * They are copied back to the heap when they are read, and released when the entry
+ * does not hold them anymore. The value of an entry whose serialized value was
+ * evicted before it was deserialized has to be reloaded.
  */
 public class LocalCacheEntry {
 
-    private volatile boolean reload;
-    private volatile boolean removed;
+    private static final int RELOAD = 1;
+    private static final int REMOVED = 1 << 1;
+    private static final int DIRTY = 1 << 2;
+    private static final int ACCESSED = 1 << 3;
+    private static final int TRANSIENT = 1 << 4;
+    // the value holds the deserialized serialized value, guarded by the lock of the entry
+    private static final int DESERIALIZED = 1 << 5;
+
+    private static final AtomicIntegerFieldUpdater<LocalCacheEntry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(LocalCacheEntry.class, "state");
+
+    private volatile int state;
     private Object value;
-    private volatile boolean dirty;
-    private final boolean transientEntry;
+    // the serialized values are Data, or handles of values kept by an OffHeapDataStore
+    private Object serializedValue;
+    private Object clusterValue;
 
     /**
      * Instantiates a new Local cache entry.
@@ -35,8 +72,7 @@ public class LocalCacheEntry {
      * @param transientEntry the transient entry
      */
     public LocalCacheEntry(boolean transientEntry) {
-        this.transientEntry = transientEntry;
-        this.reload = true;
+        this.state = RELOAD | DESERIALIZED | (transientEntry ? TRANSIENT : 0);
     }
 
     public LocalCacheEntry(boolean transientEntry, Object value) {
@@ -50,7 +86,7 @@ public class LocalCacheEntry {
      * @return the boolean
      */
     public boolean isTransient() {
-        return transientEntry;
+        return is(TRANSIENT);
     }
 
     /**
@@ -59,7 +95,7 @@ public class LocalCacheEntry {
      * @return the boolean
      */
     public boolean isDirty() {
-        return !transientEntry && dirty;
+        return (state & (DIRTY | TRANSIENT)) == DIRTY;
     }
 
     /**
@@ -68,7 +104,25 @@ public class LocalCacheEntry {
      * @param dirty the dirty
      */
     public void setDirty(boolean dirty) {
-        this.dirty = dirty;
+        set(DIRTY, dirty);
+    }
+
+    /**
+     * Is accessed.
+     *
+     * @return true if the value was returned to the application since the flag was cleared
+     */
+    public boolean isAccessed() {
+        return is(ACCESSED);
+    }
+
+    /**
+     * Sets accessed.
+     *
+     * @param accessed the accessed
+     */
+    public void setAccessed(boolean accessed) {
+        set(ACCESSED, accessed);
     }
 
     /**
@@ -77,7 +131,7 @@ public class LocalCacheEntry {
      * @return the boolean
      */
     public boolean isReload() {
-        return reload;
+        return is(RELOAD);
     }
 
     /**
@@ -86,7 +140,7 @@ public class LocalCacheEntry {
      * @return the boolean
      */
     public boolean isRemoved() {
-        return removed;
+        return is(REMOVED);
     }
 
     /**
@@ -95,7 +149,7 @@ public class LocalCacheEntry {
      * @param reload the reload
      */
     public void setReload(boolean reload) {
-        this.reload = reload;
+        set(RELOAD, reload);
     }
 
     /**
@@ -104,7 +158,7 @@ public class LocalCacheEntry {
      * @param removed the removed
      */
     public void setRemoved(boolean removed) {
-        this.removed = removed;
+        set(REMOVED, removed);
     }
 
     /**
@@ -112,19 +166,157 @@ public class LocalCacheEntry {
      *
      * @param value the value
      */
-    public void setValue(Object value) {
+    public synchronized void setValue(Object value) {
+        Object previous = serializedValue;
         this.value = value;
+        this.serializedValue = null;
+        set(DESERIALIZED, true);
+        release(previous);
+    }
+
+    /**
+     * Sets the serialized value, which is deserialized when the value is first read.
+     *
+     * @param serializedValue the serialized value, or its handle from {@link OffHeapDataStore#store(Data)}
+     */
+    public synchronized void setSerializedValue(Object serializedValue) {
+        Object previous = this.serializedValue;
+        Object previousClusterValue = clusterValue;
+        this.value = null;
+        this.serializedValue = serializedValue;
+        this.clusterValue = serializedValue;
+        set(DESERIALIZED, serializedValue == null);
+        release(previous);
+        release(previousClusterValue);
     }
 
     /**
-     * Gets value.
+     * Gets the serialized value, if the value was not replaced since it was read
+     * from the cluster.
+     *
+     * @return the serialized value, or null if the entry does not hold one
+     */
+    public synchronized Data getSerializedValue() {
+        return OffHeapDataStore.toHeapData(serializedValue);
+    }
+
+    /**
+     * Gets the serialized value which was last read from or written to the cluster.
+     *
+     * @return the serialized value the cluster holds, or null if it is not known
+     */
+    public synchronized Data getClusterValue() {
+        return OffHeapDataStore.toHeapData(clusterValue);
+    }
+
+    /**
+     * Sets the serialized value the cluster holds, when it is not known from
+     * reading the entry in its serialized form.
+     *
+     * @param clusterValue the serialized value the cluster holds, or its handle from {@link OffHeapDataStore#store(Data)}
+     */
+    public synchronized void setClusterValue(Object clusterValue) {
+        Object previous = this.clusterValue;
+        this.clusterValue = clusterValue;
+        release(previous);
+    }
+
+    /**
+     * Records that a value was written to the cluster. If the value was not
+     * replaced meanwhile, the serialized value is kept for it.
+     *
+     * @param writtenValue    the value which was written
+     * @param serializedValue the serialized value which was written, or its handle from
+     *                        {@link OffHeapDataStore#store(Data)}, null if the entry was removed
+     */
+    public synchronized void setWritten(Object writtenValue, Object serializedValue) {
+        Object previous = this.serializedValue;
+        Object previousClusterValue = clusterValue;
+        this.clusterValue = serializedValue;
+        if (is(DESERIALIZED) && value == writtenValue) {
+            this.serializedValue = serializedValue;
+        }
+        release(previous);
+        release(previousClusterValue);
+    }
+
+    /**
+     * Gets value. The serialized value is not deserialized by this method, see
+     * {@link #getValue(Function)}.
      *
      * @return the value
      */
-    public Object getValue() {
+    public synchronized Object getValue() {
         return value;
     }
 
+    /**
+     * Gets value, deserializing the serialized value when it is read first.
+     *
+     * @param deserializer the function deserializing the serialized value
+     * @return the value
+     */
+    public synchronized Object getValue(Function<Data, Object> deserializer) {
+        deserialize(deserializer);
+        return value;
+    }
+
+    /**
+     * Deserializes the serialized value, if it was not deserialized yet.
+     *
+     * @param deserializer the function deserializing the serialized value
+     * @return false if the serialized value was evicted from off-heap memory, so the value must be reloaded
+     */
+    public synchronized boolean deserialize(Function<Data, Object> deserializer) {
+        if (!is(DESERIALIZED)) {
+            Data data = OffHeapDataStore.toHeapData(serializedValue);
+            if (data == null) {
+                return false;
+            }
+            value = deserializer.apply(data);
+            set(DESERIALIZED, true);
+        }
+        return true;
+    }
+
+    /**
+     * Frees the off-heap memory of the serialized values, when the entry is not
+     * used anymore. The entry keeps their handles, so if it is still read, a value
+     * which was not deserialized yet is reloaded, like a value evicted from
+     * off-heap memory.
+     */
+    public synchronized void releaseOffHeap() {
+        OffHeapDataStore.release(serializedValue);
+        OffHeapDataStore.release(clusterValue);
+    }
+
+    /**
+     * Has value.
+     *
+     * @return true if the entry holds a value, either deserialized or serialized
+     */
+    public synchronized boolean hasValue() {
+        return value != null || serializedValue != null;
+    }
+
+    private void release(Object previous) {
+        if (previous != serializedValue && previous != clusterValue) {
+            OffHeapDataStore.release(previous);
+        }
+    }
+
+    private boolean is(int flag) {
+        return (state & flag) != 0;
+    }
+
+    private void set(int flag, boolean on) {
+        int current;
+        int next;
+        do {
+            current = state;
+            next = on ? current | flag : current & ~flag;
+        } while (current != next && !STATE.compareAndSet(this, current, next));
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -137,20 +329,20 @@ public class LocalCacheEntry {
 
         LocalCacheEntry that = (LocalCacheEntry) o;
 
-        if (reload != that.reload || removed != that.removed || dirty != that.dirty || transientEntry != that.transientEntry) {
+        // the accessed and deserialized flags do not change the content of the entry
+        int flags = RELOAD | REMOVED | DIRTY | TRANSIENT;
+        if ((state & flags) != (that.state & flags)) {
             return false;
         }
-        return Objects.equals(value, that.value);
+        return Objects.equals(value, that.value) && Objects.equals(OffHeapDataStore.toHeapData(serializedValue),
+                OffHeapDataStore.toHeapData(that.serializedValue));
 
     }
 
     @Override
     public int hashCode() {
-        int result = (reload ? 1 : 0);
-        result = 31 * result + (removed ? 1 : 0);
+        int result = state & (RELOAD | REMOVED | DIRTY | TRANSIENT);
         result = 31 * result + (value != null ? value.hashCode() : 0);
-        result = 31 * result + (dirty ? 1 : 0);
-        result = 31 * result + (transientEntry ? 1 : 0);
         return result;
     }
 }
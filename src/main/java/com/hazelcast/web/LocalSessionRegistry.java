@@ -0,0 +1,348 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.util.SampleableConcurrentHashMap;
+import com.hazelcast.internal.util.SampleableConcurrentHashMap.SamplingEntry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The sessions of a {@link WebFilter} which are cached locally, indexed by their
+ * Hazelcast session id and by the id of their original session of the container.
+ * <p>
+ * Both ids are keys of a single map pointing to the session, so either id is
+ * resolved to the session with one lookup. The keys are the id strings the session
+ * holds anyway, and the state the registry keeps for a session is held by the
+ * session itself, so a session only costs the two nodes of the map. Since the two
+ * kinds of ids share the map, a session is only returned for an id it was registered
+ * with as that kind of id. A session is marked as unregistered before its keys are
+ * removed, so it is never found by one id after it was removed by the other one.
+ * <p>
+ * The registry is bounded: when it holds more than the maximum number of sessions,
+ * the least recently used of a random sample of sessions is evicted, like Hazelcast
+ * evicts map entries. Sessions which were not used for the maximum idle time are
+ * evicted too. Eviction only removes the local copy of a session, it is rebuilt
+ * from the cluster when it is used again. The off-heap memory of the attributes
+ * of an evicted session is freed once no request uses it, see
+ * {@link HazelcastHttpSession#evict()}.
+ * <p>
+ * A session whose original session expired can be kept detached for some time.
+ * It is not found by requests anymore, but it is reclaimed with its cached
+ * attributes when its Hazelcast session is used again with a new original session.
+ */
+public final class LocalSessionRegistry {
+
+    private static final int SAMPLE_COUNT = 15;
+    private static final int INITIAL_CAPACITY = 2000;
+
+    // Hazelcast session ids and original session ids to the sessions
+    private final SampleableConcurrentHashMap<String, HazelcastHttpSession> index =
+            new SampleableConcurrentHashMap<>(INITIAL_CAPACITY);
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+    private final long maxIdleMillis;
+    private final long detachedMaxIdleMillis;
+    private final long idleSweepIntervalMillis;
+    private final AtomicLong nextIdleSweepMillis = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize       the maximum number of sessions
+     * @param maxIdleMillis the time after which unused sessions are evicted, 0 to never evict idle sessions
+     */
+    public LocalSessionRegistry(int maxSize, long maxIdleMillis) {
+        this(maxSize, maxIdleMillis, 0);
+    }
+
+    /**
+     * @param maxSize               the maximum number of sessions
+     * @param maxIdleMillis         the time after which unused sessions are evicted, 0 to never evict idle sessions
+     * @param detachedMaxIdleMillis the time detached sessions are kept, 0 to not keep them
+     */
+    public LocalSessionRegistry(int maxSize, long maxIdleMillis, long detachedMaxIdleMillis) {
+        this.maxSize = maxSize;
+        this.maxIdleMillis = maxIdleMillis;
+        this.detachedMaxIdleMillis = detachedMaxIdleMillis;
+        this.idleSweepIntervalMillis = maxIdleMillis <= 0 || detachedMaxIdleMillis <= 0
+                ? Math.max(maxIdleMillis, detachedMaxIdleMillis)
+                : Math.min(maxIdleMillis, detachedMaxIdleMillis);
+    }
+
+    /**
+     * Gets a session and records its use. A session which was idle for the
+     * maximum idle time is evicted instead.
+     *
+     * @param sessionId the Hazelcast session id
+     * @return the session, or null if it is not cached locally
+     */
+    public HazelcastHttpSession get(String sessionId) {
+        return lookup(sessionId, false);
+    }
+
+    /**
+     * Gets the session of an original session and records its use, like {@link #get(String)}.
+     *
+     * @param originalSessionId the id of an original session of the container
+     * @return the session, or null if it is not cached locally
+     */
+    public HazelcastHttpSession getByOriginalSessionId(String originalSessionId) {
+        return lookup(originalSessionId, true);
+    }
+
+    /**
+     * Gets a session without recording its use.
+     *
+     * @param sessionId the Hazelcast session id
+     * @return the session, or null if it is not cached locally
+     */
+    public HazelcastHttpSession peek(String sessionId) {
+        HazelcastHttpSession session = find(sessionId, false);
+        return session == null || session.unregistered || session.detached ? null : session;
+    }
+
+    /**
+     * Adds a session, evicting other sessions if the registry is full. A session
+     * added before with the same Hazelcast session id is replaced.
+     *
+     * @param originalSessionId the id of the original session of the session
+     * @param session           the session
+     * @return the Hazelcast session id the original session had before, or null
+     */
+    public String put(String originalSessionId, HazelcastHttpSession session) {
+        long now = System.currentTimeMillis();
+        String sessionId = session.getId();
+        String previousOriginalSessionId = session.registeredOriginalSessionId;
+        session.registeredOriginalSessionId = originalSessionId;
+        session.lastLocalAccessMillis = now;
+        session.detached = false;
+        session.unregistered = false;
+        HazelcastHttpSession replaced = index.put(sessionId, session);
+        if (replaced == null || !sessionId.equals(replaced.getId())) {
+            size.incrementAndGet();
+        } else if (replaced != session) {
+            replaced.unregistered = true;
+            removeOriginalSessionId(replaced);
+        } else if (previousOriginalSessionId != null && !previousOriginalSessionId.equals(originalSessionId)) {
+            index.remove(previousOriginalSessionId, session);
+        }
+        HazelcastHttpSession previous = index.put(originalSessionId, session);
+        evictIdle(now);
+        int excess = size.get() - maxSize;
+        for (int i = 0; i < excess; i++) {
+            evictLeastRecentlyUsed();
+        }
+        return previous == null ? null : previous.getId();
+    }
+
+    /**
+     * Removes the original session id of a session, the session itself is kept
+     * until it is removed with {@link #remove(HazelcastHttpSession)}.
+     *
+     * @param originalSessionId the id of an original session of the container
+     * @return the session of the original session, or null
+     */
+    public HazelcastHttpSession removeOriginalSession(String originalSessionId) {
+        HazelcastHttpSession session = find(originalSessionId, true);
+        if (session == null || !index.remove(originalSessionId, session)) {
+            return null;
+        }
+        return session.unregistered ? null : session;
+    }
+
+    /**
+     * Detaches a session whose original session id was removed, so it is kept
+     * until it is reclaimed with {@link #reclaim(String)} or evicted, without
+     * being found by {@link #get(String)}.
+     *
+     * @param session the session
+     * @return {@code false} if detached sessions are not kept or the session is not registered anymore
+     */
+    public boolean detach(HazelcastHttpSession session) {
+        if (detachedMaxIdleMillis <= 0 || index.get(session.getId()) != session || session.unregistered) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        session.lastLocalAccessMillis = now;
+        session.detached = true;
+        // sessions are detached when the container expires them, so the expired ones are swept here too
+        evictIdle(now);
+        return true;
+    }
+
+    /**
+     * Removes a session, whether it is detached or not, so it can be added again
+     * with a new original session. Only one caller reclaims a session.
+     *
+     * @param sessionId the Hazelcast session id
+     * @return the session, or null if it is not cached locally or was reclaimed by another caller
+     */
+    public HazelcastHttpSession reclaim(String sessionId) {
+        HazelcastHttpSession session = find(sessionId, false);
+        if (session == null || session.unregistered) {
+            return null;
+        }
+        if (isIdle(session, System.currentTimeMillis())) {
+            evict(session);
+            return null;
+        }
+        return unregister(session) ? session : null;
+    }
+
+    /**
+     * Removes a session with both of its ids, if it is still registered.
+     *
+     * @param session the session
+     */
+    public void remove(HazelcastHttpSession session) {
+        if (index.get(session.getId()) == session) {
+            unregister(session);
+        }
+    }
+
+    public void clear() {
+        for (HazelcastHttpSession session : index.values()) {
+            session.unregistered = true;
+        }
+        index.clear();
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return the number of sessions found by {@link #get(String)} and {@link #getByOriginalSessionId(String)}
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of sessions not found by {@link #get(String)} and
+     * {@link #getByOriginalSessionId(String)}, including idle sessions
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of sessions evicted because the registry was full or they were idle
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private HazelcastHttpSession lookup(String key, boolean originalSessionId) {
+        HazelcastHttpSession session = find(key, originalSessionId);
+        long now = System.currentTimeMillis();
+        if (session != null && !session.unregistered && isIdle(session, now)) {
+            evict(session);
+        }
+        if (session == null || session.unregistered || session.detached) {
+            misses.increment();
+            return null;
+        }
+        session.lastLocalAccessMillis = now;
+        hits.increment();
+        return session;
+    }
+
+    /**
+     * Finds the session registered with an id of the given kind. Hazelcast session
+     * ids and original session ids are random ids of different generators, so they
+     * are not expected to be equal; if they were, a session would not be found by
+     * the other kind of id, rather than another session being returned.
+     */
+    private HazelcastHttpSession find(String key, boolean originalSessionId) {
+        HazelcastHttpSession session = index.get(key);
+        if (session == null) {
+            return null;
+        }
+        return key.equals(originalSessionId ? session.registeredOriginalSessionId : session.getId()) ? session : null;
+    }
+
+    private boolean isIdle(HazelcastHttpSession session, long now) {
+        long idleMillis = session.detached ? detachedMaxIdleMillis : maxIdleMillis;
+        return idleMillis > 0 && now - session.lastLocalAccessMillis > idleMillis;
+    }
+
+    /**
+     * Evicts the idle sessions, at most once per maximum idle time.
+     */
+    private void evictIdle(long now) {
+        long nextSweep = nextIdleSweepMillis.get();
+        if (idleSweepIntervalMillis <= 0 || now < nextSweep
+                || !nextIdleSweepMillis.compareAndSet(nextSweep, now + idleSweepIntervalMillis)) {
+            return;
+        }
+        for (HazelcastHttpSession session : index.values()) {
+            if (isIdle(session, now)) {
+                evict(session);
+            }
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        HazelcastHttpSession leastRecentlyUsed = null;
+        Iterable<SamplingEntry<String, HazelcastHttpSession>> samples = index.getRandomSamples(SAMPLE_COUNT);
+        for (SamplingEntry<String, HazelcastHttpSession> sample : samples) {
+            HazelcastHttpSession session = sample.getEntryValue();
+            if (!session.unregistered && (leastRecentlyUsed == null
+                    || session.lastLocalAccessMillis < leastRecentlyUsed.lastLocalAccessMillis)) {
+                leastRecentlyUsed = session;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            evict(leastRecentlyUsed);
+        }
+    }
+
+    private void evict(HazelcastHttpSession session) {
+        if (unregister(session)) {
+            evictions.increment();
+            session.evict();
+        }
+    }
+
+    /**
+     * Marks the session as unregistered, then removes both of its keys.
+     *
+     * @return {@code true} if this call removed the session
+     */
+    private boolean unregister(HazelcastHttpSession session) {
+        session.unregistered = true;
+        removeOriginalSessionId(session);
+        if (index.remove(session.getId(), session)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void removeOriginalSessionId(HazelcastHttpSession session) {
+        String originalSessionId = session.registeredOriginalSessionId;
+        // the key of the Hazelcast session id, if both ids are equal, is removed by the caller
+        if (originalSessionId != null && !originalSessionId.equals(session.getId())) {
+            index.remove(originalSessionId, session);
+        }
+    }
+}
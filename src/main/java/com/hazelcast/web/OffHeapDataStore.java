@@ -0,0 +1,373 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.impl.HeapData;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the serialized attributes cached locally by the sessions in off-heap
+ * memory, so they are not scanned by the garbage collector. Only a small handle
+ * is left on the heap for each attribute, its bytes are copied back to the heap
+ * when the attribute is deserialized.
+ * <p>
+ * The memory is allocated in slabs of direct buffers, up to the configured
+ * capacity. Each slab is split into chunks of one size, and a value is stored in
+ * a chunk of the smallest size it fits in. When no chunk of that size is free
+ * and no slab can be allocated anymore, a chunk of that size is evicted, with
+ * the CLOCK algorithm, so values which were read recently are evicted last. The
+ * attribute of an evicted value is fetched from the cluster again when it is read.
+ * <p>
+ * When all slabs are used by chunks of other sizes, a slab is taken back from
+ * the size with the most slabs, evicting its values, as long as that size keeps
+ * a slab. Values larger than a slab, and values for which no slab can be taken
+ * back, are kept on the heap, see {@link #getHeapFallbackCount()}.
+ */
+public final class OffHeapDataStore {
+
+    /**
+     * The size of the slabs of off-heap memory, which is the largest value stored off-heap.
+     */
+    public static final int SLAB_SIZE = 1 << 20;
+
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double CHUNK_SIZE_FACTOR = 1.25;
+    private static final int CHUNK_ALIGNMENT = 8;
+
+    private final int maxSlabs;
+    private final AtomicInteger slabCount = new AtomicInteger();
+    private final int[] chunkSizes;
+    private final SizeClass[] sizeClasses;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder heapFallbacks = new LongAdder();
+
+    /**
+     * @param capacity the maximum number of bytes of off-heap memory, rounded down to a multiple of {@link #SLAB_SIZE}
+     */
+    public OffHeapDataStore(long capacity) {
+        if (capacity < SLAB_SIZE) {
+            throw new IllegalArgumentException("The capacity must be at least " + SLAB_SIZE + " bytes: " + capacity);
+        }
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, capacity / SLAB_SIZE);
+        this.chunkSizes = chunkSizes();
+        this.sizeClasses = new SizeClass[chunkSizes.length];
+        for (int i = 0; i < chunkSizes.length; i++) {
+            sizeClasses[i] = new SizeClass(chunkSizes[i]);
+        }
+    }
+
+    private static int[] chunkSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_CHUNK_SIZE;
+        while (size < SLAB_SIZE) {
+            sizes.add(size);
+            int next = (int) (size * CHUNK_SIZE_FACTOR);
+            size = (next + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
+        }
+        sizes.add(SLAB_SIZE);
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Copies a serialized value to off-heap memory. The returned handle is only
+     * read through a {@link LocalCacheEntry}, which copies the value back to the heap.
+     *
+     * @param data the serialized value
+     * @return the handle of the value in off-heap memory, or the given value if it is kept on the heap
+     */
+    public Object store(Data data) {
+        if (data == null) {
+            return null;
+        }
+        byte[] bytes = data.toByteArray();
+        if (bytes == null || bytes.length == 0 || bytes.length > SLAB_SIZE) {
+            return data;
+        }
+        int index = Arrays.binarySearch(chunkSizes, bytes.length);
+        SizeClass sizeClass = sizeClasses[index < 0 ? -index - 1 : index];
+        OffHeapData offHeapData = sizeClass.allocate(bytes, null);
+        if (offHeapData == null) {
+            // the size class has no slab, so a slab is taken back from another size
+            ByteBuffer slab = reclaimSlab(sizeClass);
+            offHeapData = slab != null ? sizeClass.allocate(bytes, slab) : null;
+        }
+        if (offHeapData == null) {
+            heapFallbacks.increment();
+            return data;
+        }
+        return offHeapData;
+    }
+
+    /**
+     * Copies a value back to the heap, if it is kept in off-heap memory.
+     *
+     * @param value the serialized value or its handle
+     * @return the value on the heap, or null if the value was evicted or released
+     */
+    static Data toHeapData(Object value) {
+        return value instanceof OffHeapData ? ((OffHeapData) value).toHeapData() : (Data) value;
+    }
+
+    /**
+     * Frees the off-heap memory of a value, if it is kept in off-heap memory.
+     *
+     * @param value the serialized value or its handle
+     */
+    static void release(Object value) {
+        if (value instanceof OffHeapData) {
+            OffHeapData offHeapData = (OffHeapData) value;
+            offHeapData.sizeClass.release(offHeapData);
+        }
+    }
+
+    /**
+     * @return the number of values evicted to make room for other values
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of values kept on the heap, since all slabs were used by
+     * values of other sizes and none of them could be taken back
+     */
+    public long getHeapFallbackCount() {
+        return heapFallbacks.sum();
+    }
+
+    /**
+     * @return the number of bytes of off-heap memory allocated so far
+     */
+    public long getAllocatedBytes() {
+        return (long) slabCount.get() * SLAB_SIZE;
+    }
+
+    private boolean reserveSlab() {
+        int count;
+        do {
+            count = slabCount.get();
+            if (count >= maxSlabs) {
+                return false;
+            }
+        } while (!slabCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Takes the last slab of the size class with the most slabs, if it has more
+     * than one, so a slab is not moved back and forth between two sizes.
+     */
+    private ByteBuffer reclaimSlab(SizeClass requester) {
+        SizeClass victim = null;
+        int mostSlabs = 1;
+        for (SizeClass sizeClass : sizeClasses) {
+            int slabs = sizeClass.slabCount();
+            if (sizeClass != requester && slabs > mostSlabs) {
+                victim = sizeClass;
+                mostSlabs = slabs;
+            }
+        }
+        return victim != null ? victim.removeLastSlab() : null;
+    }
+
+    /**
+     * The slabs split into chunks of one size. The chunks are numbered across
+     * the slabs; a chunk is owned by the handle of the value it holds, so a
+     * handle of an evicted or released value never reads another value.
+     */
+    private final class SizeClass {
+
+        final int chunkSize;
+        final int chunksPerSlab;
+        final List<Slab> slabs = new ArrayList<>();
+        int[] freeChunks = new int[0];
+        int freeCount;
+        // the next chunk checked by the CLOCK eviction
+        int hand;
+
+        SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+            this.chunksPerSlab = SLAB_SIZE / chunkSize;
+        }
+
+        /**
+         * Stores a value in a free chunk, in a new slab, or in an evicted chunk.
+         *
+         * @param reclaimedSlab a slab taken from another size class to add first, or null
+         * @return the handle of the value, or null if this size class has no slab and can get none
+         */
+        synchronized OffHeapData allocate(byte[] bytes, ByteBuffer reclaimedSlab) {
+            int chunk;
+            if (reclaimedSlab != null) {
+                chunk = addSlab(reclaimedSlab);
+            } else if (freeCount > 0) {
+                chunk = freeChunks[--freeCount];
+            } else if (reserveSlab()) {
+                chunk = addSlab(ByteBuffer.allocateDirect(SLAB_SIZE));
+            } else if (!slabs.isEmpty()) {
+                chunk = evict();
+            } else {
+                return null;
+            }
+            Slab slab = slabs.get(chunk / chunksPerSlab);
+            int i = chunk % chunksPerSlab;
+            slab.buffer.put(i * chunkSize, bytes);
+            OffHeapData offHeapData = new OffHeapData(this, chunk, bytes.length);
+            slab.owners[i] = offHeapData;
+            slab.referenced[i] = false;
+            return offHeapData;
+        }
+
+        /**
+         * Adds a slab, its chunks except the returned one are free.
+         */
+        private int addSlab(ByteBuffer buffer) {
+            int first = slabs.size() * chunksPerSlab;
+            slabs.add(new Slab(buffer, chunksPerSlab));
+            if (freeChunks.length < first + chunksPerSlab) {
+                freeChunks = Arrays.copyOf(freeChunks, first + chunksPerSlab);
+            }
+            for (int chunk = first + chunksPerSlab - 1; chunk > first; chunk--) {
+                freeChunks[freeCount++] = chunk;
+            }
+            return first;
+        }
+
+        synchronized int slabCount() {
+            return slabs.size();
+        }
+
+        /**
+         * Removes the last slab, so the chunks of the other slabs keep their
+         * numbers, and evicts its values.
+         *
+         * @return the buffer of the slab, or null if this size class has less than two slabs
+         */
+        synchronized ByteBuffer removeLastSlab() {
+            if (slabs.size() < 2) {
+                return null;
+            }
+            Slab slab = slabs.remove(slabs.size() - 1);
+            int first = slabs.size() * chunksPerSlab;
+            for (OffHeapData owner : slab.owners) {
+                if (owner != null) {
+                    evictions.increment();
+                }
+            }
+            int remaining = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (freeChunks[i] < first) {
+                    freeChunks[remaining++] = freeChunks[i];
+                }
+            }
+            freeCount = remaining;
+            if (hand >= first) {
+                hand = 0;
+            }
+            return slab.buffer;
+        }
+
+        /**
+         * Evicts the first chunk which was not read since the hand last passed
+         * it, clearing the read flags of the chunks the hand passes.
+         */
+        private int evict() {
+            int chunkCount = slabs.size() * chunksPerSlab;
+            while (true) {
+                int chunk = hand;
+                hand = (hand + 1) % chunkCount;
+                Slab slab = slabs.get(chunk / chunksPerSlab);
+                int i = chunk % chunksPerSlab;
+                if (slab.referenced[i]) {
+                    slab.referenced[i] = false;
+                } else {
+                    slab.owners[i] = null;
+                    evictions.increment();
+                    return chunk;
+                }
+            }
+        }
+
+        synchronized byte[] read(OffHeapData offHeapData) {
+            if (!owns(offHeapData)) {
+                return null;
+            }
+            Slab slab = slabs.get(offHeapData.chunk / chunksPerSlab);
+            int i = offHeapData.chunk % chunksPerSlab;
+            slab.referenced[i] = true;
+            byte[] bytes = new byte[offHeapData.length];
+            slab.buffer.get(i * chunkSize, bytes);
+            return bytes;
+        }
+
+        synchronized void release(OffHeapData offHeapData) {
+            if (owns(offHeapData)) {
+                slabs.get(offHeapData.chunk / chunksPerSlab).owners[offHeapData.chunk % chunksPerSlab] = null;
+                freeChunks[freeCount++] = offHeapData.chunk;
+            }
+        }
+
+        // the slab of the chunk may have been removed, or replaced by a reclaimed one
+        private boolean owns(OffHeapData offHeapData) {
+            int slab = offHeapData.chunk / chunksPerSlab;
+            return slab < slabs.size() && slabs.get(slab).owners[offHeapData.chunk % chunksPerSlab] == offHeapData;
+        }
+    }
+
+    private static final class Slab {
+
+        final ByteBuffer buffer;
+        final OffHeapData[] owners;
+        final boolean[] referenced;
+
+        Slab(ByteBuffer buffer, int chunkCount) {
+            this.buffer = buffer;
+            this.owners = new OffHeapData[chunkCount];
+            this.referenced = new boolean[chunkCount];
+        }
+    }
+
+    /**
+     * The handle of a serialized value kept in off-heap memory.
+     */
+    private static final class OffHeapData {
+
+        private final SizeClass sizeClass;
+        private final int chunk;
+        private final int length;
+
+        private OffHeapData(SizeClass sizeClass, int chunk, int length) {
+            this.sizeClass = sizeClass;
+            this.chunk = chunk;
+            this.length = length;
+        }
+
+        /**
+         * @return the value on the heap, or null if the value was evicted or released
+         */
+        HeapData toHeapData() {
+            byte[] bytes = sizeClass.read(this);
+            return bytes == null ? null : new HeapData(bytes);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Session state which stores its attributes as one contiguous, offset-indexed
+ * binary blob instead of a map of {@link Data} entries.
+ * <p>
+ * The blob starts with the attribute count, the version and the last removal
+ * version of the state, followed by an index entry per attribute holding its
+ * UTF-8 encoded name, its version and the length of its value, followed by the
+ * values. Reading, selecting or replacing attributes works on the blob directly,
+ * without creating the map entries. Any other access unpacks the blob into the
+ * maps of {@link SessionState} once, and the state is packed again when written.
+ * <p>
+ * The state is selected with the {@code packed-session-state} parameter. It has its
+ * own class id, so members keep reading the {@link SessionState} entries written
+ * before, or written by web filters which do not use this format.
+ */
+public class PackedSessionState extends SessionState {
+
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES;
+    private static final int INDEX_ENTRY_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    // the blob, until an access other than reading, selecting or replacing attributes unpacks it
+    private volatile byte[] packed;
+
+    @Override
+    public int getClassId() {
+        return WebDataSerializerHook.PACKED_SESSION_STATE;
+    }
+
+    @Override
+    public Map<String, Data> getAttributes() {
+        unpack();
+        return super.getAttributes();
+    }
+
+    @Override
+    public Data getAttribute(String name) {
+        byte[] blob = packed;
+        if (blob == null) {
+            return super.getAttribute(name);
+        }
+        Index index = new Index(blob);
+        int i = index.find(name.getBytes(StandardCharsets.UTF_8));
+        return i < 0 ? null : index.value(i);
+    }
+
+    @Override
+    public void setAttribute(String key, Data value) {
+        unpack();
+        super.setAttribute(key, value);
+    }
+
+    @Override
+    public long getVersion() {
+        byte[] blob = packed;
+        return blob == null ? super.getVersion() : ByteBuffer.wrap(blob).getLong(Integer.BYTES);
+    }
+
+    @Override
+    public long getLastRemovalVersion() {
+        byte[] blob = packed;
+        return blob == null ? super.getLastRemovalVersion() : ByteBuffer.wrap(blob).getLong(Integer.BYTES + Long.BYTES);
+    }
+
+    @Override
+    public Map<String, Data> update(Map<String, Data> updates) {
+        byte[] blob = packed;
+        return blob == null ? super.update(updates) : updatePacked(new Index(blob), updates);
+    }
+
+    @Override
+    public SessionState changesSince(long sinceVersion) {
+        byte[] blob = packed;
+        if (blob != null && sinceVersion == getVersion()) {
+            SessionState changes = new SessionState();
+            changes.restore(getVersion(), getLastRemovalVersion());
+            return changes;
+        }
+        unpack();
+        return super.changesSince(sinceVersion);
+    }
+
+    @Override
+    public boolean isCompleteSince(long sinceVersion) {
+        return getLastRemovalVersion() > sinceVersion || getVersion() < sinceVersion;
+    }
+
+    @Override
+    public SessionState select(Set<String> names) {
+        byte[] blob = packed;
+        if (blob == null) {
+            return super.select(names);
+        }
+        Index index = new Index(blob);
+        SessionState selection = new SessionState();
+        selection.restore(index.version, index.lastRemovalVersion);
+        for (String name : names) {
+            int i = index.find(name.getBytes(StandardCharsets.UTF_8));
+            if (i >= 0) {
+                selection.restoreAttribute(name, index.value(i), index.versions[i]);
+            }
+        }
+        return selection;
+    }
+
+    @Override
+    public void set(Map<String, Data> attributes) {
+        unpack();
+        super.set(attributes);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        byte[] blob = packed;
+        out.writeByteArray(blob == null ? pack() : blob);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        packed = in.readByteArray();
+    }
+
+    @Override
+    public String toString() {
+        unpack();
+        return super.toString();
+    }
+
+    private synchronized void unpack() {
+        byte[] blob = packed;
+        if (blob == null) {
+            return;
+        }
+        Index index = new Index(blob);
+        restore(index.version, index.lastRemovalVersion);
+        for (int i = 0; i < index.count; i++) {
+            restoreAttribute(new String(index.names[i], StandardCharsets.UTF_8), index.value(i), index.versions[i]);
+        }
+        packed = null;
+    }
+
+    private byte[] pack() {
+        Map<String, Data> attributes = super.getAttributes();
+        Blob blob = new Blob(attributes.size());
+        for (Map.Entry<String, Data> entry : attributes.entrySet()) {
+            byte[] value = entry.getValue().toByteArray();
+            blob.add(entry.getKey().getBytes(StandardCharsets.UTF_8), getAttributeVersion(entry.getKey()),
+                    value, 0, value.length);
+        }
+        return blob.toByteArray(super.getVersion(), super.getLastRemovalVersion());
+    }
+
+    private Map<String, Data> updatePacked(Index index, Map<String, Data> updates) {
+        Map<String, Data> changes = new HashMap<>(updates.size());
+        long newVersion = index.version + 1;
+        long lastRemovalVersion = index.lastRemovalVersion;
+        // per indexed attribute, null to keep it, the new value to replace it, or REMOVED
+        byte[][] replacements = new byte[index.count][];
+        List<Map.Entry<String, Data>> additions = new ArrayList<>();
+        for (Map.Entry<String, Data> update : updates.entrySet()) {
+            Data value = update.getValue();
+            int i = index.find(update.getKey().getBytes(StandardCharsets.UTF_8));
+            if (i < 0) {
+                if (value != null) {
+                    additions.add(update);
+                    changes.put(update.getKey(), value);
+                }
+            } else if (value == null) {
+                replacements[i] = Index.REMOVED;
+                changes.put(update.getKey(), null);
+                lastRemovalVersion = newVersion;
+            } else if (!index.valueEquals(i, value)) {
+                replacements[i] = value.toByteArray();
+                changes.put(update.getKey(), value);
+            }
+        }
+        if (changes.isEmpty()) {
+            return changes;
+        }
+        Blob blob = new Blob(index.count + additions.size());
+        for (int i = 0; i < index.count; i++) {
+            byte[] replacement = replacements[i];
+            if (replacement == null) {
+                blob.add(index.names[i], index.versions[i], index.blob, index.offsets[i], index.lengths[i]);
+            } else if (replacement != Index.REMOVED) {
+                blob.add(index.names[i], newVersion, replacement, 0, replacement.length);
+            }
+        }
+        for (Map.Entry<String, Data> addition : additions) {
+            byte[] value = addition.getValue().toByteArray();
+            blob.add(addition.getKey().getBytes(StandardCharsets.UTF_8), newVersion, value, 0, value.length);
+        }
+        packed = blob.toByteArray(newVersion, lastRemovalVersion);
+        return changes;
+    }
+
+    /**
+     * The parsed index of a blob, pointing to the names and values in the blob.
+     */
+    private static final class Index {
+
+        static final byte[] REMOVED = new byte[0];
+
+        final byte[] blob;
+        final int count;
+        final long version;
+        final long lastRemovalVersion;
+        final byte[][] names;
+        final long[] versions;
+        final int[] offsets;
+        final int[] lengths;
+
+        Index(byte[] blob) {
+            this.blob = blob;
+            ByteBuffer buffer = ByteBuffer.wrap(blob);
+            count = buffer.getInt();
+            version = buffer.getLong();
+            lastRemovalVersion = buffer.getLong();
+            names = new byte[count][];
+            versions = new long[count];
+            offsets = new int[count];
+            lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = new byte[buffer.getInt()];
+                buffer.get(names[i]);
+                versions[i] = buffer.getLong();
+                lengths[i] = buffer.getInt();
+            }
+            int offset = buffer.position();
+            for (int i = 0; i < count; i++) {
+                offsets[i] = offset;
+                offset += lengths[i];
+            }
+        }
+
+        int find(byte[] name) {
+            for (int i = 0; i < count; i++) {
+                if (Arrays.equals(names[i], name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Data value(int i) {
+            return new HeapData(Arrays.copyOfRange(blob, offsets[i], offsets[i] + lengths[i]));
+        }
+
+        boolean valueEquals(int i, Data value) {
+            byte[] bytes = value.toByteArray();
+            return bytes != null && Arrays.equals(blob, offsets[i], offsets[i] + lengths[i], bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Collects the attributes of a new blob, copying their values from their
+     * source arrays once the size of the blob is known.
+     */
+    private static final class Blob {
+
+        private final List<byte[]> names;
+        private final long[] versions;
+        private final List<byte[]> sources;
+        private final int[] offsets;
+        private final int[] lengths;
+        private int size = HEADER_SIZE;
+
+        Blob(int capacity) {
+            names = new ArrayList<>(capacity);
+            sources = new ArrayList<>(capacity);
+            versions = new long[capacity];
+            offsets = new int[capacity];
+            lengths = new int[capacity];
+        }
+
+        void add(byte[] name, long version, byte[] source, int offset, int length) {
+            int i = names.size();
+            names.add(name);
+            sources.add(source);
+            versions[i] = version;
+            offsets[i] = offset;
+            lengths[i] = length;
+            size += INDEX_ENTRY_SIZE + name.length + length;
+        }
+
+        byte[] toByteArray(long version, long lastRemovalVersion) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(names.size());
+            buffer.putLong(version);
+            buffer.putLong(lastRemovalVersion);
+            for (int i = 0; i < names.size(); i++) {
+                buffer.putInt(names.get(i).length);
+                buffer.put(names.get(i));
+                buffer.putLong(versions[i]);
+                buffer.putInt(lengths[i]);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                buffer.put(sources.get(i), offsets[i], lengths[i]);
+            }
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.internal.util.QuickMath;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Generates the ids of the Hazelcast sessions: {@code HZ} followed by 128 random
+ * bits from a {@link SecureRandom}, as 32 upper case hexadecimal digits.
+ * <p>
+ * The ids are generated by a few stripes, each with its own generator, so
+ * threads creating sessions concurrently rarely wait for each other. The
+ * generators are not thread-local, so they do not keep the classes of the web
+ * application loaded after it is undeployed. Each stripe encodes the random
+ * bytes into its own buffer, so only the returned string is allocated.
+ */
+public final class SessionIdGenerator {
+
+    private static final String PREFIX = "HZ";
+    private static final int RANDOM_BYTES = 16;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final int HEX_BITS = 4;
+    private static final int HEX_MASK = 0xF;
+
+    private static final Stripe[] STRIPES = createStripes();
+
+    private SessionIdGenerator() {
+    }
+
+    /**
+     * @return a new session id
+     */
+    public static String newSessionId() {
+        Stripe stripe = STRIPES[(int) Thread.currentThread().getId() & (STRIPES.length - 1)];
+        synchronized (stripe) {
+            return stripe.next();
+        }
+    }
+
+    private static Stripe[] createStripes() {
+        int count = QuickMath.nextPowerOfTwo(2 * Runtime.getRuntime().availableProcessors());
+        Stripe[] stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            // unlike the default NativePRNG, whose instances share one lock, DRBG instances are independent
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Stripe {
+
+        final byte[] bytes = new byte[RANDOM_BYTES];
+        final char[] chars = new char[PREFIX.length() + 2 * RANDOM_BYTES];
+        // created on first use, so the stripes which are never used are not seeded
+        SecureRandom random;
+
+        Stripe() {
+            PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        }
+
+        String next() {
+            if (random == null) {
+                random = newSecureRandom();
+            }
+            random.nextBytes(bytes);
+            int j = PREFIX.length();
+            for (byte b : bytes) {
+                chars[j++] = HEX_DIGITS[(b >> HEX_BITS) & HEX_MASK];
+                chars[j++] = HEX_DIGITS[b & HEX_MASK];
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -25,17 +25,31 @@ import jakarta.annotation.Nonnull;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Wrapper class which holds session attributes
+ * <p>
+ * Each change of the attributes increments the version of the state, and the
+ * version is recorded for the changed attributes, so the changes since a
+ * version can be sent instead of the whole state. See {@link #changesSince(long)}
+ * <p>
+ * With the OBJECT in-memory format the entry processors change the stored state
+ * in place. They set it as the entry value whenever they changed it, so it is
+ * replicated, and only return copies of it, never the stored state itself.
  */
 
 public class SessionState implements IdentifiedDataSerializable {
 
     @Nonnull
     private final Map<String, Data> attributes = new HashMap<>(1);
+    @Nonnull
+    private final Map<String, Long> attributeVersions = new HashMap<>(1);
+    private long version;
+    private long lastRemovalVersion;
 
     @Override
     public int getFactoryId() {
@@ -44,43 +58,190 @@ public class SessionState implements IdentifiedDataSerializable {
 
     @Override
     public int getClassId() {
-        return WebDataSerializerHook.SESSION_STATE;
+        return WebDataSerializerHook.SESSION_STATE_V2;
     }
 
     public Map<String, Data> getAttributes() {
         return attributes;
     }
 
+    public Data getAttribute(String name) {
+        return attributes.get(name);
+    }
+
     public void setAttribute(String key, Data value) {
         attributes.put(key, value);
+        attributeVersions.put(key, ++version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLastRemovalVersion() {
+        return lastRemovalVersion;
+    }
+
+    /**
+     * @param name the name of an attribute of this state
+     * @return the version the attribute was last changed with
+     */
+    protected long getAttributeVersion(String name) {
+        Long attributeVersion = attributeVersions.get(name);
+        return attributeVersion == null ? version : attributeVersion;
+    }
+
+    /**
+     * Restores the versions of a state read in another format, see {@link PackedSessionState}.
+     *
+     * @param version            the version of the state
+     * @param lastRemovalVersion the version an attribute was last removed with
+     */
+    protected void restore(long version, long lastRemovalVersion) {
+        this.version = version;
+        this.lastRemovalVersion = lastRemovalVersion;
+    }
+
+    /**
+     * Restores an attribute of a state read in another format, see {@link PackedSessionState}.
+     *
+     * @param name             the name of the attribute
+     * @param value            the value of the attribute
+     * @param attributeVersion the version the attribute was last changed with
+     */
+    protected void restoreAttribute(String name, Data value, long attributeVersion) {
+        attributes.put(name, value);
+        attributeVersions.put(name, attributeVersion);
+    }
+
+    /**
+     * Applies the given attribute updates to this state. An update with a
+     * {@code null} value removes the attribute.
+     *
+     * @param updates the attribute updates to apply
+     * @return the subset of {@code updates} which actually changed this state
+     */
+    public Map<String, Data> update(Map<String, Data> updates) {
+        Map<String, Data> changes = new HashMap<>(updates.size());
+        long newVersion = version + 1;
+        for (Map.Entry<String, Data> update : updates.entrySet()) {
+            String name = update.getKey();
+            Data value = update.getValue();
+            Data oldValue = value == null ? attributes.remove(name) : attributes.put(name, value);
+            if (!Objects.equals(oldValue, value)) {
+                changes.put(name, value);
+                if (value == null) {
+                    attributeVersions.remove(name);
+                    lastRemovalVersion = newVersion;
+                } else {
+                    attributeVersions.put(name, newVersion);
+                }
+            }
+        }
+        if (!changes.isEmpty()) {
+            version = newVersion;
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the changes of this state since the given version, as a state with
+     * the version of this state and the attributes changed after the given
+     * version. As removed attributes are not recorded, all attributes are
+     * returned if an attribute was removed after the given version, see
+     * {@link #isCompleteSince(long)}.
+     *
+     * @param sinceVersion the version the changes are requested since
+     * @return the changes since the given version, without attributes if the version is the current one
+     */
+    public SessionState changesSince(long sinceVersion) {
+        SessionState changes = new SessionState();
+        changes.version = version;
+        changes.lastRemovalVersion = lastRemovalVersion;
+        if (sinceVersion == version) {
+            return changes;
+        }
+        boolean complete = isCompleteSince(sinceVersion);
+        for (Map.Entry<String, Data> entry : attributes.entrySet()) {
+            Long attributeVersion = attributeVersions.get(entry.getKey());
+            if (complete || attributeVersion == null || attributeVersion > sinceVersion) {
+                changes.attributes.put(entry.getKey(), entry.getValue());
+                changes.attributeVersions.put(entry.getKey(), attributeVersion);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @param sinceVersion the version the changes are requested since
+     * @return {@code true} if {@link #changesSince(long)} returns all attributes
+     * for the given version, so the attributes it does not return do not exist
+     */
+    public boolean isCompleteSince(long sinceVersion) {
+        return lastRemovalVersion > sinceVersion || version < sinceVersion;
+    }
+
+    /**
+     * Returns the given attributes of this state, as a state with the version
+     * of this state, so the attributes changed afterwards can be requested with
+     * {@link #changesSince(long)}. Names of attributes which do not exist are
+     * ignored.
+     *
+     * @param names the names of the attributes to return
+     * @return the given attributes of this state
+     */
+    public SessionState select(Set<String> names) {
+        SessionState selection = new SessionState();
+        selection.version = version;
+        selection.lastRemovalVersion = lastRemovalVersion;
+        for (String name : names) {
+            Data value = attributes.get(name);
+            if (value != null) {
+                selection.attributes.put(name, value);
+                selection.attributeVersions.put(name, attributeVersions.get(name));
+            }
+        }
+        return selection;
     }
 
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(version);
+        out.writeLong(lastRemovalVersion);
         out.writeInt(attributes.size());
         for (Map.Entry<String, Data> entry : attributes.entrySet()) {
-            out.writeString(entry.getKey());
+            AttributeNameDictionary.writeName(out, entry.getKey());
             IOUtil.writeData(out, entry.getValue());
+            out.writeLong(getAttributeVersion(entry.getKey()));
         }
     }
 
     @Override
     public void readData(ObjectDataInput in) throws IOException {
+        version = in.readLong();
+        lastRemovalVersion = in.readLong();
         int attCount = in.readInt();
         for (int i = 0; i < attCount; i++) {
-            attributes.put(in.readString(), IOUtil.readData(in));
+            String name = AttributeNameDictionary.readName(in);
+            attributes.put(name, IOUtil.readData(in));
+            attributeVersions.put(name, in.readLong());
         }
     }
 
     public void set(Map<String, Data> attributes) {
         requireNonNull(attributes, "attributes should not be null, please report a bug if you got this error");
         this.attributes.putAll(attributes);
+        version++;
+        for (String name : attributes.keySet()) {
+            attributeVersions.put(name, version);
+        }
     }
 
     @Override
     public String toString() {
         requireNonNull(attributes, "attributes should not be null, please report a bug if you got this error");
         StringBuilder sb = new StringBuilder("SessionState {");
+        sb.append("version=").append(version);
         sb.append(", attributes=").append(attributes.size());
         for (Map.Entry<String, Data> entry : attributes.entrySet()) {
             Data data = entry.getValue();
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.instance.impl.OutOfMemoryErrorDispatcher;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resets the idle time in the cluster of the sessions which were used from the
+ * local cache, in periodic batches instead of one map read per request.
+ * <p>
+ * The ids of the sessions used locally are collected, each once, and touched
+ * every quarter of the maximum idle time of the session map, so a session used
+ * locally is never idle in the cluster for more than a quarter of its maximum
+ * idle time. A touch groups the sessions by the owner of their partition and
+ * sends each group with one read-only entry processor, which returns nothing.
+ * <p>
+ * The maximum idle time is read from the entry of the first session touched,
+ * unless the filter configured it on the Hazelcast instance it created; until
+ * it is known, sessions are touched every second. Sessions are not touched if
+ * they never become idle in the cluster.
+ */
+public final class SessionTouchScheduler {
+
+    private static final ILogger LOGGER = Logger.getLogger(SessionTouchScheduler.class);
+    private static final long TICK_MILLIS = 1000;
+    private static final int MAX_IDLE_FRACTION = 4;
+
+    private final ClusteredSessionService clusteredSessionService;
+    private final Set<String> pendingTouches = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService toucher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            try {
+                runnable.run();
+            } catch (OutOfMemoryError e) {
+                OutOfMemoryErrorDispatcher.onOutOfMemory(e);
+            }
+        }, ".hazelcast-wm.sessionTouch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the maximum idle time of the sessions in the cluster, -1 until it is known, guarded by the toucher thread
+    private long maxIdleMillis;
+    private long lastTouchMillis;
+    private volatile boolean neverIdle;
+
+    /**
+     * @param clusteredSessionService the service touching the sessions
+     * @param maxIdleMillis           the maximum idle time of the sessions, or -1 if it is not known
+     */
+    public SessionTouchScheduler(ClusteredSessionService clusteredSessionService, long maxIdleMillis) {
+        this.clusteredSessionService = clusteredSessionService;
+        setMaxIdleMillis(maxIdleMillis);
+        toucher.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the idle time of a session to be reset with the next touch.
+     *
+     * @param sessionId the session id
+     */
+    public void touch(String sessionId) {
+        if (!neverIdle) {
+            pendingTouches.add(sessionId);
+        }
+    }
+
+    public void shutdown() {
+        toucher.shutdown();
+    }
+
+    private void setMaxIdleMillis(long maxIdleMillis) {
+        this.maxIdleMillis = maxIdleMillis;
+        // a map entry without maximum idle time reports Long.MAX_VALUE
+        this.neverIdle = maxIdleMillis == 0 || maxIdleMillis == Long.MAX_VALUE;
+        if (neverIdle) {
+            pendingTouches.clear();
+        }
+    }
+
+    private long touchIntervalMillis() {
+        return maxIdleMillis < 0 ? TICK_MILLIS : Math.max(TICK_MILLIS, maxIdleMillis / MAX_IDLE_FRACTION);
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        if (pendingTouches.isEmpty() || now - lastTouchMillis < touchIntervalMillis()) {
+            return;
+        }
+        lastTouchMillis = now;
+        try {
+            touchPendingSessions();
+        } catch (Exception e) {
+            LOGGER.warning("Failed to reset the idle time of sessions on cluster: " + e.getMessage(), e);
+        }
+    }
+
+    private void touchPendingSessions() {
+        Map<Member, Set<String>> sessionsByOwner = new HashMap<>();
+        for (Iterator<String> iterator = pendingTouches.iterator(); iterator.hasNext(); ) {
+            String sessionId = iterator.next();
+            iterator.remove();
+            Member owner = clusteredSessionService.getPartitionOwner(sessionId);
+            sessionsByOwner.computeIfAbsent(owner, member -> new HashSet<>()).add(sessionId);
+        }
+        if (maxIdleMillis < 0 && !sessionsByOwner.isEmpty()) {
+            String sessionId = sessionsByOwner.values().iterator().next().iterator().next();
+            setMaxIdleMillis(clusteredSessionService.getSessionMaxIdleMillis(sessionId));
+        }
+        for (Set<String> ownerSessions : sessionsByOwner.values()) {
+            clusteredSessionService.touchSessionsAsync(ownerSessions).whenComplete((result, e) -> {
+                if (e != null) {
+                    LOGGER.warning("Failed to reset the idle time of " + ownerSessions.size() + " sessions on cluster: "
+                            + e.getMessage(), e);
+                }
+            });
+        }
+    }
+}
@@ -22,8 +22,12 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.web.entryprocessor.DeleteSessionEntryProcessor;
 import com.hazelcast.web.entryprocessor.GetAttributeEntryProcessor;
 import com.hazelcast.web.entryprocessor.GetAttributeNamesEntryProcessor;
+import com.hazelcast.web.entryprocessor.GetAttributesEntryProcessor;
+import com.hazelcast.web.entryprocessor.GetSessionChangesEntryProcessor;
 import com.hazelcast.web.entryprocessor.GetSessionStateEntryProcessor;
+import com.hazelcast.web.entryprocessor.SessionBatchUpdateEntryProcessor;
 import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+import com.hazelcast.web.entryprocessor.TouchSessionEntryProcessor;
 
 /**
  * WebDataSerializerHook is used to create IdentifiedDataSerializable instances of serializable classes
@@ -37,7 +41,8 @@ public class WebDataSerializerHook implements DataSerializerHook {
     public static final int F_ID = FactoryIdHelper.getFactoryId(FactoryIdHelper.WEB_DS_FACTORY, F_ID_OFFSET_WEBMODULE);
 
     /**
-     * The constant SESSION_UPDATE.
+     * The constant SESSION_UPDATE, for the form without attribute name encoding
+     * and packed state flag. Only read, see {@link #SESSION_UPDATE_V2}.
      */
     public static final int SESSION_UPDATE = 1;
     /**
@@ -45,7 +50,8 @@ public class WebDataSerializerHook implements DataSerializerHook {
      */
     public static final int SESSION_DELETE = 2;
     /**
-     * The constant GET_ATTRIBUTE.
+     * The constant GET_ATTRIBUTE, for the form without attribute name encoding.
+     * Only read, see {@link #GET_ATTRIBUTE_V2}.
      */
     public static final int GET_ATTRIBUTE = 3;
     /**
@@ -57,9 +63,46 @@ public class WebDataSerializerHook implements DataSerializerHook {
      */
     public static final int GET_SESSION_STATE = 5;
     /**
-     * The constant SESSION_STATE.
+     * The constant SESSION_STATE, for the form without versions and attribute
+     * name encoding. Only read, see {@link #SESSION_STATE_V2}.
      */
     public static final int SESSION_STATE = 6;
+    /**
+     * The constant SESSION_BATCH_UPDATE.
+     */
+    public static final int SESSION_BATCH_UPDATE = 7;
+    /**
+     * The constant GET_SESSION_CHANGES.
+     */
+    public static final int GET_SESSION_CHANGES = 8;
+    /**
+     * The constant GET_ATTRIBUTES.
+     */
+    public static final int GET_ATTRIBUTES = 9;
+    /**
+     * The constant ENCODED_ATTRIBUTE.
+     */
+    public static final int ENCODED_ATTRIBUTE = 10;
+    /**
+     * The constant PACKED_SESSION_STATE.
+     */
+    public static final int PACKED_SESSION_STATE = 11;
+    /**
+     * The constant TOUCH_SESSION.
+     */
+    public static final int TOUCH_SESSION = 12;
+    /**
+     * The constant SESSION_STATE_V2.
+     */
+    public static final int SESSION_STATE_V2 = 13;
+    /**
+     * The constant SESSION_UPDATE_V2.
+     */
+    public static final int SESSION_UPDATE_V2 = 14;
+    /**
+     * The constant GET_ATTRIBUTE_V2.
+     */
+    public static final int GET_ATTRIBUTE_V2 = 15;
 
     @Override
     public DataSerializableFactory createFactory() {
@@ -71,14 +114,24 @@ public class WebDataSerializerHook implements DataSerializerHook {
         };
     }
 
+    @SuppressWarnings("checkstyle:cyclomaticcomplexity")
     private IdentifiedDataSerializable getIdentifiedDataSerializable(int typeId) {
         return switch (typeId) {
-            case SESSION_UPDATE -> new SessionUpdateEntryProcessor();
+            case SESSION_UPDATE -> SessionUpdateEntryProcessor.readingLegacyForm();
             case SESSION_DELETE -> new DeleteSessionEntryProcessor();
-            case GET_ATTRIBUTE -> new GetAttributeEntryProcessor();
+            case GET_ATTRIBUTE -> GetAttributeEntryProcessor.readingLegacyForm();
             case GET_ATTRIBUTE_NAMES -> new GetAttributeNamesEntryProcessor();
             case GET_SESSION_STATE -> new GetSessionStateEntryProcessor();
-            case SESSION_STATE -> new SessionState();
+            case SESSION_STATE -> new LegacySessionState();
+            case SESSION_BATCH_UPDATE -> new SessionBatchUpdateEntryProcessor();
+            case GET_SESSION_CHANGES -> new GetSessionChangesEntryProcessor();
+            case GET_ATTRIBUTES -> new GetAttributesEntryProcessor();
+            case ENCODED_ATTRIBUTE -> new EncodedAttribute();
+            case PACKED_SESSION_STATE -> new PackedSessionState();
+            case TOUCH_SESSION -> new TouchSessionEntryProcessor();
+            case SESSION_STATE_V2 -> new SessionState();
+            case SESSION_UPDATE_V2 -> new SessionUpdateEntryProcessor();
+            case GET_ATTRIBUTE_V2 -> new GetAttributeEntryProcessor();
             default -> null;
         };
     }
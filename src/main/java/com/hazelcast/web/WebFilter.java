@@ -15,12 +15,12 @@
 
 package com.hazelcast.web;
 
+import com.hazelcast.cluster.Member;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
-import com.hazelcast.internal.util.UuidUtil;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -36,9 +36,9 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
+import java.util.Enumeration;
 import java.util.Properties;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import static com.hazelcast.internal.util.StringUtil.isNullOrEmptyAfterTrim;
@@ -99,13 +99,15 @@ public class WebFilter implements Filter {
     protected static final ILogger LOGGER = Logger.getLogger(WebFilter.class);
     protected static final LocalCacheEntry NULL_ENTRY = new LocalCacheEntry(false);
 
+    // the maximum number of ids drawn to find one owned by the local member, enough for clusters of a few members
+    private static final int LOCAL_PARTITION_SESSION_ID_ATTEMPTS = 16;
+    private static final String COOKIE_HEADER = "Cookie";
+
     protected ServletContext servletContext;
 
     private final Properties properties;
 
-    private final ConcurrentMap<String, String> originalSessions = new ConcurrentHashMap<>(1000);
-    private final ConcurrentMap<String, HazelcastHttpSession> sessions =
-            new ConcurrentHashMap<>(1000);
+    private LocalSessionRegistry sessions;
 
     private ClusteredSessionService clusteredSessionService;
 
@@ -120,12 +122,10 @@ public class WebFilter implements Filter {
     }
 
     void destroyOriginalSession(HttpSession originalSession) {
-        String hazelcastSessionId = originalSessions.remove(originalSession.getId());
-        if (hazelcastSessionId != null) {
-            HazelcastHttpSession hazelSession = sessions.get(hazelcastSessionId);
-            if (hazelSession != null) {
-                destroySession(hazelSession, false);
-            }
+        HazelcastHttpSession hazelSession = sessions.removeOriginalSession(originalSession.getId());
+        // the session is kept detached if configured, so it is rebound if its Hazelcast session is used again
+        if (hazelSession != null && !sessions.detach(hazelSession)) {
+            destroySession(hazelSession, false);
         }
     }
 
@@ -133,20 +133,31 @@ public class WebFilter implements Filter {
         return clusteredSessionService;
     }
 
-    private static String generateSessionId() {
-        String id = UuidUtil.newSecureUuidString();
-        StringBuilder sb = new StringBuilder("HZ");
-        char[] chars = id.toCharArray();
-        for (final char c : chars) {
-            if (c != '-') {
-                if (Character.isLetter(c)) {
-                    sb.append(Character.toUpperCase(c));
-                } else {
-                    sb.append(c);
-                }
+    /**
+     * @return the sessions cached locally, with their hit, miss and eviction counts
+     */
+    public LocalSessionRegistry getLocalSessionRegistry() {
+        return sessions;
+    }
+
+    private String generateSessionId() {
+        String id = SessionIdGenerator.newSessionId();
+        if (config.isLocalPartitionSessionIds()) {
+            for (int i = 1; i < LOCAL_PARTITION_SESSION_ID_ATTEMPTS && !isLocalPartition(id); i++) {
+                id = SessionIdGenerator.newSessionId();
             }
         }
-        return sb.toString();
+        return id;
+    }
+
+    private boolean isLocalPartition(String sessionId) {
+        try {
+            Member owner = clusteredSessionService.getPartitionOwner(sessionId);
+            return owner != null && owner.localMember();
+        } catch (Exception e) {
+            LOGGER.log(Level.FINEST, "Cannot get the partition owner of session " + sessionId, e);
+            return false;
+        }
     }
 
     @Override
@@ -158,6 +169,9 @@ public class WebFilter implements Filter {
         servletContext.setAttribute(WEB_FILTER_ATTRIBUTE_KEY, this);
 
         clusteredSessionService = new ClusteredSessionService(this.config);
+        sessions = new LocalSessionRegistry(config.getMaxLocalSessions(),
+                TimeUnit.SECONDS.toMillis(config.getLocalSessionMaxIdleSeconds()),
+                TimeUnit.SECONDS.toMillis(config.getDetachedSessionMaxIdleSeconds()));
 
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.log(Level.FINEST, this.config.toString());
@@ -187,7 +201,10 @@ public class WebFilter implements Filter {
             LOGGER.log(Level.FINEST, "Original session exists!");
         }
         HttpSession originalSession = requestWrapper.getOriginalSession(true);
-        HazelcastHttpSession hazelcastSession = createHazelcastHttpSession(id, originalSession);
+        HazelcastHttpSession hazelcastSession = sessionExistsInTheCluster ? rebindLocalSession(id, originalSession) : null;
+        if (hazelcastSession == null) {
+            hazelcastSession = createHazelcastHttpSession(id, originalSession);
+        }
         if (existingSessionId == null) {
             hazelcastSession.setClusterWideNew(true);
             // If the session is being created for the first time, add its initial reference in the cluster-wide map.
@@ -207,18 +224,34 @@ public class WebFilter implements Filter {
      */
     protected HazelcastHttpSession createHazelcastHttpSession(String id, HttpSession originalSession) {
         return new HazelcastHttpSession(this, id, originalSession, config.isDeferredWrite(),
-                config.isStickySession(), config.getTransientAttributes());
+                config.isStickySession(), config.getTransientAttributes(), config.getHotAttributes());
+    }
+
+    /**
+     * Binds the local copy of a session to a new original session, when the
+     * previous original session expired but the session still exists in the
+     * cluster, so its attributes are not fetched again.
+     *
+     * @return the session, or null if it is not cached locally
+     */
+    private HazelcastHttpSession rebindLocalSession(String id, HttpSession originalSession) {
+        HazelcastHttpSession localSession = sessions.reclaim(id);
+        if (localSession == null || !localSession.isValid()) {
+            return null;
+        }
+        LOGGER.log(Level.FINEST, "Rebinding local session to a new original session");
+        localSession.rebind(originalSession);
+        return localSession;
     }
 
     private void updateSessionMaps(String originalSessionId, HazelcastHttpSession hazelcastSession) {
-        sessions.put(hazelcastSession.getId(), hazelcastSession);
-        String oldHazelcastSessionId = originalSessions.put(originalSessionId, hazelcastSession.getId());
+        String oldHazelcastSessionId = sessions.put(originalSessionId, hazelcastSession);
         if (LOGGER.isFinestEnabled()) {
             if (oldHazelcastSessionId != null) {
                 LOGGER.log(Level.FINEST, "Overwrote an existing hazelcastSessionId " + oldHazelcastSessionId);
             }
             LOGGER.log(Level.FINEST, "Created new session with id: " + hazelcastSession.getId());
-            LOGGER.log(Level.FINEST, sessions.size() + " is sessions.size and originalSessions.size: " + originalSessions.size());
+            LOGGER.log(Level.FINEST, sessions.size() + " is sessions.size");
         }
     }
 
@@ -234,13 +267,16 @@ public class WebFilter implements Filter {
         if (LOGGER.isFinestEnabled()) {
             LOGGER.log(Level.FINEST, "Destroying local session: " + session.getId());
         }
-        sessions.remove(session.getId());
-        originalSessions.remove(session.getOriginalSession().getId());
+        sessions.remove(session);
         session.destroy(invalidate);
     }
 
     private HazelcastHttpSession getSessionWithId(final String sessionId) {
-        HazelcastHttpSession session = sessions.get(sessionId);
+        return checkLocalSession(sessions.get(sessionId));
+    }
+
+    private HazelcastHttpSession checkLocalSession(HazelcastHttpSession localSession) {
+        HazelcastHttpSession session = localSession;
         if (session != null && !session.isValid()) {
             destroySession(session, true);
             session = null;
@@ -300,27 +336,33 @@ public class WebFilter implements Filter {
         HazelcastRequestWrapper requestWrapper =
                 new HazelcastRequestWrapper((HttpServletRequest) req, (HttpServletResponse) res);
 
-        chain.doFilter(requestWrapper, res);
-
-        HazelcastHttpSession session = requestWrapper.getSession(false);
-        if (session != null && session.isValid()) {
-            if (config.isDeferredWrite()) {
-                if (LOGGER.isFinestEnabled()) {
-                    LOGGER.log(Level.FINEST, "Updating session " + session.getId());
+        try {
+            chain.doFilter(requestWrapper, res);
+
+            HazelcastHttpSession session = requestWrapper.getSession(false);
+            if (session != null && session.isValid()) {
+                // make the attribute updates sent during the request visible before the response completes
+                session.awaitPendingWrites();
+                if (config.isDeferredWrite()) {
+                    if (LOGGER.isFinestEnabled()) {
+                        LOGGER.log(Level.FINEST, "Updating session " + session.getId());
+                    }
+                    session.sessionDeferredWrite();
+                }
+                if (config.isKeepRemoteActive() && session.isKeepRemoteActive()) {
+                    // update the idle time of session on cluster map
+                    session.keepRemoteActive();
                 }
-                session.sessionDeferredWrite();
-            }
-            if (config.isKeepRemoteActive() && session.isKeepRemoteActive()) {
-                // update the idle time of session on cluster map
-                session.keepRemoteActive();
             }
+        } finally {
+            requestWrapper.releaseSession();
         }
     }
 
     @Override
     public final void destroy() {
         sessions.clear();
-        originalSessions.clear();
+        clusteredSessionService.flushDeferredWrites();
         if (config.isShutdownOnDestroy()) {
             clusteredSessionService.destroy();
         }
@@ -329,6 +371,10 @@ public class WebFilter implements Filter {
     protected class HazelcastRequestWrapper extends HttpServletRequestWrapper {
         final HttpServletResponse res;
         HazelcastHttpSession hazelcastSession;
+        // the session the request uses, released when the request completes
+        private HazelcastHttpSession heldSession;
+        private String cookieSessionId;
+        private boolean cookieSessionIdRead;
 
         public HazelcastRequestWrapper(final HttpServletRequest req,
                                        final HttpServletResponse res) {
@@ -382,9 +428,29 @@ public class WebFilter implements Filter {
             if (hazelcastSession == null && !res.isCommitted() && (create || hazelcastSessionId != null)) {
                 hazelcastSession = createNewSession(HazelcastRequestWrapper.this, create, hazelcastSessionId);
             }
+            holdSession(hazelcastSession);
             return hazelcastSession;
         }
 
+        /**
+         * Releases the session the request uses, see {@link HazelcastHttpSession#acquire()}.
+         */
+        void releaseSession() {
+            holdSession(null);
+        }
+
+        private void holdSession(HazelcastHttpSession session) {
+            if (session != heldSession) {
+                if (session != null) {
+                    session.acquire();
+                }
+                if (heldSession != null) {
+                    heldSession.release();
+                }
+                heldSession = session;
+            }
+        }
+
         @Override
         public boolean isRequestedSessionIdValid() {
             return hazelcastSession != null && hazelcastSession.isValid();
@@ -396,10 +462,10 @@ public class WebFilter implements Filter {
             if (nonWrappedHttpServletRequest.getSession() == null) {
                 throw new IllegalStateException("changeSessionId requested for request with no session");
             }
-            originalSessions.remove(nonWrappedHttpServletRequest.getSession().getId());
+            sessions.removeOriginalSession(nonWrappedHttpServletRequest.getSession().getId());
 
             HazelcastHttpSession hazelcastHttpSession = getSession(false);
-            sessions.remove(hazelcastHttpSession.getId());
+            sessions.remove(hazelcastHttpSession);
             hazelcastHttpSession.destroy(true);
 
             String newHazelcastSessionId = generateSessionId();
@@ -428,19 +494,13 @@ public class WebFilter implements Filter {
 
             HttpSession originalSession = getOriginalSession(false);
             if (originalSession != null) {
-                String hazelcastSessionId = originalSessions.get(originalSession.getId());
                 String hazelcastSessionIdFromRequest = findHazelcastSessionIdFromRequest();
-                // hazelcast.sessionId from the request overrides hazelcast.sessionId corresponding to jsessionid from
-                // the request
-                if (hazelcastSessionIdFromRequest != null && !hazelcastSessionIdFromRequest.equals(hazelcastSessionId)) {
-                    hazelcastSessionId = hazelcastSessionIdFromRequest;
-                }
-
-                if (hazelcastSessionId != null) {
-                    hazelcastSession = getSessionWithId(hazelcastSessionId);
+                HazelcastHttpSession localSession = findLocalSession(originalSession, hazelcastSessionIdFromRequest);
+                if (localSession != null || hazelcastSessionIdFromRequest != null) {
+                    hazelcastSession = checkLocalSession(localSession);
 
                     if (hazelcastSession != null && !hazelcastSession.isStickySession()) {
-                        hazelcastSession.updateReloadFlag();
+                        hazelcastSession.revalidate();
                     }
                     return hazelcastSession;
                 }
@@ -458,12 +518,23 @@ public class WebFilter implements Filter {
             return readFromCookie();
         }
 
+        private HazelcastHttpSession findLocalSession(HttpSession originalSession, String hazelcastSessionIdFromRequest) {
+            HazelcastHttpSession localSession = sessions.getByOriginalSessionId(originalSession.getId());
+            // hazelcast.sessionId from the request overrides hazelcast.sessionId corresponding to jsessionid from
+            // the request
+            if (hazelcastSessionIdFromRequest != null
+                    && (localSession == null || !hazelcastSessionIdFromRequest.equals(localSession.getId()))) {
+                localSession = sessions.get(hazelcastSessionIdFromRequest);
+            }
+            return localSession;
+        }
+
         private HazelcastHttpSession readFromCookie() {
             String existingHazelcastSessionId = findHazelcastSessionIdFromRequest();
             if (existingHazelcastSessionId != null) {
                 hazelcastSession = getSessionWithId(existingHazelcastSessionId);
                 if (hazelcastSession != null && !hazelcastSession.isStickySession()) {
-                    hazelcastSession.updateReloadFlag();
+                    hazelcastSession.revalidate();
                     return hazelcastSession;
                 }
             }
@@ -472,19 +543,12 @@ public class WebFilter implements Filter {
 
 
         private String findHazelcastSessionIdFromRequest() {
-            String hzSessionId = null;
-
-            final Cookie[] cookies = getCookies();
-            if (cookies != null) {
-                for (final Cookie cookie : cookies) {
-                    final String name = cookie.getName();
-                    final String value = cookie.getValue();
-                    if (name.equalsIgnoreCase(config.getCookieName())) {
-                        hzSessionId = value;
-                        break;
-                    }
-                }
+            // the cookies of the request do not change, so they are only read once
+            if (!cookieSessionIdRead) {
+                cookieSessionId = config.isCookieHeaderParsing() ? findSessionIdInCookieHeaders() : findSessionIdInCookies();
+                cookieSessionIdRead = true;
             }
+            String hzSessionId = cookieSessionId;
             // if hazelcast session id is not found on the cookie and using request parameter is enabled, look into
             // request parameters
             if (hzSessionId == null && config.isUseRequestParameter()) {
@@ -493,5 +557,28 @@ public class WebFilter implements Filter {
 
             return hzSessionId;
         }
+
+        private String findSessionIdInCookies() {
+            final Cookie[] cookies = getCookies();
+            if (cookies != null) {
+                for (final Cookie cookie : cookies) {
+                    if (cookie.getName().equalsIgnoreCase(config.getCookieName())) {
+                        return cookie.getValue();
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String findSessionIdInCookieHeaders() {
+            Enumeration<String> headers = getHeaders(COOKIE_HEADER);
+            while (headers != null && headers.hasMoreElements()) {
+                String sessionId = CookieHeader.findValue(headers.nextElement(), config.getCookieName());
+                if (sessionId != null) {
+                    return sessionId;
+                }
+            }
+            return null;
+        }
     }
 }
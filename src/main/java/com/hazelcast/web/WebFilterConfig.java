@@ -16,6 +16,7 @@
 package com.hazelcast.web;
 
 import com.hazelcast.internal.config.ConfigLoader;
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
@@ -36,6 +37,7 @@ import java.util.StringTokenizer;
 /**
  * Contains all configuration parameters for Hazelcast session replication
  */
+@SuppressWarnings("checkstyle:methodcount")
 public final class WebFilterConfig {
     /**
      * Location of the client's configuration. It can be specified as a servlet
@@ -100,6 +102,179 @@ public final class WebFilterConfig {
      */
     public static final String DEFERRED_WRITE = "deferred-write";
 
+    /**
+     * Specifies whether the deferred writes are sent to the cluster by
+     * background threads after the request completes, instead of by the
+     * request thread. Writes of a session are applied in order and are
+     * visible to the next request of the session on the same instance.
+     * Only used when DEFERRED_WRITE is true.
+     * Its default value is false.
+     */
+    public static final String DEFERRED_WRITE_ASYNC = "deferred-write-async";
+
+    /**
+     * Number of background threads sending the deferred writes when
+     * DEFERRED_WRITE_ASYNC is true.
+     * Its default value is 2.
+     */
+    public static final String DEFERRED_WRITE_ASYNC_THREADS = "deferred-write-async-threads";
+
+    /**
+     * Maximum number of deferred writes waiting for a background thread when
+     * DEFERRED_WRITE_ASYNC is true, shared evenly by the threads. When the queue
+     * of a thread is full, the request blocks at its end until the thread takes
+     * a write from it. So while the cluster is slow and the queue stays full, the
+     * request latency grows with the time to send the writes queued before it.
+     * Its default value is 10000.
+     */
+    public static final String DEFERRED_WRITE_ASYNC_QUEUE_CAPACITY = "deferred-write-async-queue-capacity";
+
+    /**
+     * Specifies whether the deferred writes are buffered for a short time and
+     * sent to the cluster in batches, merging the writes of a session and
+     * grouping the sessions by partition owner. Like DEFERRED_WRITE_ASYNC, the
+     * request thread does not wait for the cluster, and it takes precedence
+     * over DEFERRED_WRITE_ASYNC. Only used when DEFERRED_WRITE is true.
+     * Its default value is false.
+     */
+    public static final String DEFERRED_WRITE_COALESCING = "deferred-write-coalescing";
+
+    /**
+     * Interval (in milliseconds) of the flushes of the buffered deferred writes
+     * when DEFERRED_WRITE_COALESCING is true.
+     * Its default value is 5.
+     */
+    public static final String DEFERRED_WRITE_COALESCING_FLUSH_INTERVAL_MILLIS =
+            "deferred-write-coalescing-flush-interval-millis";
+
+    /**
+     * Number of buffered sessions which triggers a flush before the flush
+     * interval elapses when DEFERRED_WRITE_COALESCING is true.
+     * Its default value is 1000.
+     */
+    public static final String DEFERRED_WRITE_COALESCING_MAX_BATCH_SIZE = "deferred-write-coalescing-max-batch-size";
+
+    /**
+     * Maximum time (in milliseconds) a deferred write is buffered when
+     * DEFERRED_WRITE_COALESCING is true. When the oldest buffered write is older,
+     * request threads wait for the buffer to be flushed.
+     * Its default value is 100.
+     */
+    public static final String DEFERRED_WRITE_COALESCING_MAX_STALENESS_MILLIS =
+            "deferred-write-coalescing-max-staleness-millis";
+
+    /**
+     * Specifies whether the attributes read by a request are checked for changes
+     * made to the attribute objects without calling setAttribute again. Each
+     * attribute returned by getAttribute is serialized again at the end of the
+     * request and written to the cluster only if its serialized form changed.
+     * Only used when DEFERRED_WRITE is true.
+     * Its default value is false.
+     */
+    public static final String DEFERRED_WRITE_TRACK_MUTATIONS = "deferred-write-track-mutations";
+
+    /**
+     * Class name of an {@link AttributeCodec} encoding the serialized form of
+     * large attributes, for example {@link DeflateAttributeCodec} to compress
+     * them, before they are stored in the distributed map. Attributes stored
+     * without encoding are still read.
+     * The default value is null, attributes are not encoded.
+     */
+    public static final String ATTRIBUTE_CODEC = "attribute-codec";
+
+    /**
+     * Minimum size (in bytes) of the serialized form of an attribute encoded by
+     * ATTRIBUTE_CODEC. Smaller attributes are stored as they are.
+     * Its default value is 1024.
+     */
+    public static final String ATTRIBUTE_CODEC_THRESHOLD = "attribute-codec-threshold";
+
+    /**
+     * Comma separated class names of the {@link AttributeCodec}s, besides
+     * ATTRIBUTE_CODEC, whose encoded attributes are read, for example while the
+     * codec of the web applications sharing the sessions is changed. Attributes
+     * encoded by other codecs are not read.
+     * Its default value is empty.
+     */
+    public static final String ATTRIBUTE_DECODING_CODECS = "attribute-decoding-codecs";
+
+    /**
+     * Specifies whether new sessions are stored as a {@link PackedSessionState},
+     * which keeps the attributes as one binary blob, so single attributes are read
+     * and replaced without creating an entry per attribute on the members.
+     * Sessions stored in the other format are still read and updated, so web
+     * filters using different values can share the map during a rolling upgrade.
+     * Its default value is false.
+     */
+    public static final String PACKED_SESSION_STATE = "packed-session-state";
+
+    /**
+     * In-memory format of the session map of the Hazelcast instance created by
+     * WebFilter, BINARY or OBJECT. With OBJECT the members keep the session states
+     * as objects, so the entry processors update them in place instead of
+     * deserializing and serializing the whole state for each update. An existing
+     * instance used through INSTANCE_NAME must configure it itself.
+     * The default value is null, the format of the map configuration is used.
+     */
+    public static final String IN_MEMORY_FORMAT = "in-memory-format";
+
+    /**
+     * Maximum number of sessions cached locally by WebFilter. When more sessions
+     * are used, the least recently used sessions are evicted from the local cache
+     * and rebuilt from the cluster when they are used again.
+     * Its default value is unbounded.
+     */
+    public static final String MAX_LOCAL_SESSIONS = "max-local-sessions";
+
+    /**
+     * Time (in seconds) after which a session which was not used is evicted from
+     * the local cache of WebFilter, even if the container did not destroy it yet.
+     * It is rebuilt from the cluster when it is used again.
+     * Its default value is 0, idle sessions are not evicted.
+     */
+    public static final String LOCAL_SESSION_MAX_IDLE_SECONDS = "local-session-max-idle-seconds";
+
+    /**
+     * Time (in seconds) for which the local copy of a session whose container
+     * session expired is kept, with its cached attributes. If a request uses the
+     * Hazelcast session again meanwhile, the copy is bound to the new container
+     * session, and only the attributes changed since it was cached are fetched.
+     * Its default value is 0, the local copy is destroyed with the container session.
+     */
+    public static final String DETACHED_SESSION_MAX_IDLE_SECONDS = "detached-session-max-idle-seconds";
+
+    /**
+     * Size (in megabytes) of the off-heap memory keeping the serialized attributes
+     * cached locally by the sessions, so they are not scanned by the garbage
+     * collector. When it is full, the least recently read attributes are evicted
+     * and fetched from the cluster again when they are read.
+     * Its default value is 0, the attributes are cached on the heap.
+     */
+    public static final String LOCAL_CACHE_OFF_HEAP_SIZE_MB = "local-cache-off-heap-size-mb";
+
+    /**
+     * Specifies whether the session map is read through a Near Cache, so that
+     * the attributes cached by a session are only fetched again when another
+     * instance actually changed them. This avoids most cluster reads when
+     * STICKY_SESSION is false. A Near Cache is configured for the map of the
+     * Hazelcast instance created by WebFilter; an existing instance used through
+     * INSTANCE_NAME must configure it itself.
+     * Its default value is false.
+     */
+    public static final String USE_NEAR_CACHE = "use-near-cache";
+
+    /**
+     * Specifies whether new session ids are generated so that the sessions are
+     * owned by the member created by WebFilter, or named by INSTANCE_NAME, which
+     * makes most operations on the sessions created on it local calls. Random
+     * ids are drawn until one falls in a partition owned by the local member,
+     * up to a few attempts, so the ids are as unpredictable as before. Sessions
+     * may still move to other members when the partitions are migrated. It
+     * cannot be used when USE_CLIENT is true.
+     * Its default value is false.
+     */
+    public static final String LOCAL_PARTITION_SESSION_IDS = "local-partition-session-ids";
+
     /**
      * Specifies whether a request parameter can be used by clients to send
      * back the session ID value.
@@ -114,6 +289,15 @@ public final class WebFilterConfig {
      */
     public static final String TRANSIENT_ATTRIBUTES = "transient-attributes";
 
+    /**
+     * Comma separated attributes which are fetched together with a single call
+     * when a session is first used on a server. All other attributes are
+     * fetched when they are first read. If not set, all attributes are fetched
+     * together. It is not used together with {@link #USE_NEAR_CACHE}.
+     * The default value is an empty list.
+     */
+    public static final String HOT_ATTRIBUTES = "hot-attributes";
+
     /**
      * If set to true, it's guaranteed that whenever a session is used the
      * idle-time of this session on the distributed map is reset. Note that
@@ -159,8 +343,22 @@ public final class WebFilterConfig {
      */
     public static final String COOKIE_MAX_AGE = "cookie-max-age";
 
+    /**
+     * Specifies whether the session ID cookie is read from the raw Cookie
+     * headers of the request, instead of from the cookies parsed by the
+     * container, so the other cookies of the request are not parsed for it.
+     * Its default value is false.
+     */
+    public static final String COOKIE_HEADER_PARSING = "cookie-header-parsing";
+
     private static final ILogger LOGGER = Logger.getLogger(WebFilterConfig.class);
     private static final int SESSION_TTL_DEFAULT_SECONDS = 1800;
+    private static final int DEFERRED_WRITE_ASYNC_DEFAULT_THREADS = 2;
+    private static final int DEFERRED_WRITE_ASYNC_DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFERRED_WRITE_COALESCING_DEFAULT_FLUSH_INTERVAL_MILLIS = 5;
+    private static final int DEFERRED_WRITE_COALESCING_DEFAULT_MAX_BATCH_SIZE = 1000;
+    private static final int DEFERRED_WRITE_COALESCING_DEFAULT_MAX_STALENESS_MILLIS = 100;
+    private static final int ATTRIBUTE_CODEC_DEFAULT_THRESHOLD = 1024;
 
     private boolean useClient;
     private URL configUrl;
@@ -170,8 +368,28 @@ public final class WebFilterConfig {
     private boolean stickySession;
     private boolean shutdownOnDestroy;
     private boolean deferredWrite;
+    private boolean deferredWriteAsync;
+    private int deferredWriteAsyncThreads;
+    private int deferredWriteAsyncQueueCapacity;
+    private boolean deferredWriteCoalescing;
+    private int deferredWriteCoalescingFlushIntervalMillis;
+    private int deferredWriteCoalescingMaxBatchSize;
+    private int deferredWriteCoalescingMaxStalenessMillis;
+    private boolean deferredWriteTrackMutations;
+    private String attributeCodec;
+    private int attributeCodecThreshold;
+    private Set<String> attributeDecodingCodecs;
+    private boolean packedSessionState;
+    private InMemoryFormat inMemoryFormat;
+    private int maxLocalSessions;
+    private int localSessionMaxIdleSeconds;
+    private int detachedSessionMaxIdleSeconds;
+    private int localCacheOffHeapSizeMb;
     private boolean useRequestParameter;
+    private boolean useNearCache;
+    private boolean localPartitionSessionIds;
     private Set<String> transientAttributes;
+    private Set<String> hotAttributes;
     private boolean keepRemoteActive;
     private String cookieName;
     private String cookieDomain;
@@ -179,6 +397,7 @@ public final class WebFilterConfig {
     private boolean cookieHttpOnly;
     private String cookiePath;
     private int cookieMaxAge;
+    private boolean cookieHeaderParsing;
 
     private WebFilterConfig() {
     }
@@ -206,6 +425,7 @@ public final class WebFilterConfig {
         boolean shutdownOnDestroy = getBoolean(filterConfig, properties, SHUTDOWN_ON_DESTROY, true);
         boolean deferredWrite = getBoolean(filterConfig, properties, DEFERRED_WRITE, false);
         boolean useRequestParameter = getBoolean(filterConfig, properties, USE_REQUEST_PARAMETER, false);
+        boolean useNearCache = getBoolean(filterConfig, properties, USE_NEAR_CACHE, false);
         Set<String> transientAttributes = getStringSet(filterConfig, properties, TRANSIENT_ATTRIBUTES);
         boolean keepRemoteActive = getBoolean(filterConfig, properties, KEEP_REMOTE_ACTIVE, false);
         String cookieName = getString(filterConfig, properties, COOKIE_NAME, "hazelcast.sessionId");
@@ -224,8 +444,11 @@ public final class WebFilterConfig {
         wfc.stickySession = stickySession;
         wfc.shutdownOnDestroy = shutdownOnDestroy;
         wfc.deferredWrite = deferredWrite;
+        wfc.deferredWriteTrackMutations = getBoolean(filterConfig, properties, DEFERRED_WRITE_TRACK_MUTATIONS, false);
         wfc.useRequestParameter = useRequestParameter;
+        wfc.useNearCache = useNearCache;
         wfc.transientAttributes = transientAttributes;
+        wfc.hotAttributes = getStringSet(filterConfig, properties, HOT_ATTRIBUTES);
         wfc.keepRemoteActive = keepRemoteActive;
         wfc.cookieName = cookieName;
         wfc.cookieDomain = cookieDomain;
@@ -233,9 +456,62 @@ public final class WebFilterConfig {
         wfc.cookieHttpOnly = cookieHttpOnly;
         wfc.cookiePath = cookiePath;
         wfc.cookieMaxAge = cookieMaxAge;
+        wfc.cookieHeaderParsing = getBoolean(filterConfig, properties, COOKIE_HEADER_PARSING, false);
+        configureDeferredWriteAsync(wfc, filterConfig, properties);
+        configureDeferredWriteCoalescing(wfc, filterConfig, properties);
+        configureAttributeCodec(wfc, filterConfig, properties);
+        wfc.packedSessionState = getBoolean(filterConfig, properties, PACKED_SESSION_STATE, false);
+        wfc.localPartitionSessionIds = getBoolean(filterConfig, properties, LOCAL_PARTITION_SESSION_IDS, false);
+        wfc.inMemoryFormat = getInMemoryFormat(filterConfig, properties);
+        configureLocalSessions(wfc, filterConfig, properties);
         return wfc;
     }
 
+    private static void configureDeferredWriteAsync(WebFilterConfig wfc, FilterConfig filterConfig, Properties properties) {
+        wfc.deferredWriteAsync = getBoolean(filterConfig, properties, DEFERRED_WRITE_ASYNC, false);
+        wfc.deferredWriteAsyncThreads = getPositiveInt(filterConfig, properties, DEFERRED_WRITE_ASYNC_THREADS,
+                DEFERRED_WRITE_ASYNC_DEFAULT_THREADS);
+        wfc.deferredWriteAsyncQueueCapacity = getPositiveInt(filterConfig, properties, DEFERRED_WRITE_ASYNC_QUEUE_CAPACITY,
+                DEFERRED_WRITE_ASYNC_DEFAULT_QUEUE_CAPACITY);
+    }
+
+    private static void configureDeferredWriteCoalescing(WebFilterConfig wfc, FilterConfig filterConfig,
+                                                         Properties properties) {
+        wfc.deferredWriteCoalescing = getBoolean(filterConfig, properties, DEFERRED_WRITE_COALESCING, false);
+        wfc.deferredWriteCoalescingFlushIntervalMillis = getPositiveInt(filterConfig, properties,
+                DEFERRED_WRITE_COALESCING_FLUSH_INTERVAL_MILLIS, DEFERRED_WRITE_COALESCING_DEFAULT_FLUSH_INTERVAL_MILLIS);
+        wfc.deferredWriteCoalescingMaxBatchSize = getPositiveInt(filterConfig, properties,
+                DEFERRED_WRITE_COALESCING_MAX_BATCH_SIZE, DEFERRED_WRITE_COALESCING_DEFAULT_MAX_BATCH_SIZE);
+        wfc.deferredWriteCoalescingMaxStalenessMillis = getPositiveInt(filterConfig, properties,
+                DEFERRED_WRITE_COALESCING_MAX_STALENESS_MILLIS, DEFERRED_WRITE_COALESCING_DEFAULT_MAX_STALENESS_MILLIS);
+    }
+
+    private static void configureAttributeCodec(WebFilterConfig wfc, FilterConfig filterConfig, Properties properties) {
+        wfc.attributeCodec = getString(filterConfig, properties, ATTRIBUTE_CODEC, null);
+        wfc.attributeCodecThreshold = getPositiveInt(filterConfig, properties, ATTRIBUTE_CODEC_THRESHOLD,
+                ATTRIBUTE_CODEC_DEFAULT_THRESHOLD);
+        wfc.attributeDecodingCodecs = getStringSet(filterConfig, properties, ATTRIBUTE_DECODING_CODECS);
+    }
+
+    private static void configureLocalSessions(WebFilterConfig wfc, FilterConfig filterConfig, Properties properties) {
+        wfc.maxLocalSessions = getPositiveInt(filterConfig, properties, MAX_LOCAL_SESSIONS, Integer.MAX_VALUE);
+        wfc.localSessionMaxIdleSeconds = getInt(filterConfig, properties, LOCAL_SESSION_MAX_IDLE_SECONDS, 0);
+        if (wfc.localSessionMaxIdleSeconds < 0) {
+            throw new InvalidConfigurationException(LOCAL_SESSION_MAX_IDLE_SECONDS + " cannot be negative: ("
+                    + wfc.localSessionMaxIdleSeconds + ")");
+        }
+        wfc.detachedSessionMaxIdleSeconds = getInt(filterConfig, properties, DETACHED_SESSION_MAX_IDLE_SECONDS, 0);
+        if (wfc.detachedSessionMaxIdleSeconds < 0) {
+            throw new InvalidConfigurationException(DETACHED_SESSION_MAX_IDLE_SECONDS + " cannot be negative: ("
+                    + wfc.detachedSessionMaxIdleSeconds + ")");
+        }
+        wfc.localCacheOffHeapSizeMb = getInt(filterConfig, properties, LOCAL_CACHE_OFF_HEAP_SIZE_MB, 0);
+        if (wfc.localCacheOffHeapSizeMb < 0) {
+            throw new InvalidConfigurationException(LOCAL_CACHE_OFF_HEAP_SIZE_MB + " cannot be negative: ("
+                    + wfc.localCacheOffHeapSizeMb + ")");
+        }
+    }
+
     public boolean isUseClient() {
         return useClient;
     }
@@ -268,14 +544,94 @@ public final class WebFilterConfig {
         return deferredWrite;
     }
 
+    public boolean isDeferredWriteAsync() {
+        return deferredWriteAsync;
+    }
+
+    public int getDeferredWriteAsyncThreads() {
+        return deferredWriteAsyncThreads;
+    }
+
+    public int getDeferredWriteAsyncQueueCapacity() {
+        return deferredWriteAsyncQueueCapacity;
+    }
+
+    public boolean isDeferredWriteCoalescing() {
+        return deferredWriteCoalescing;
+    }
+
+    public int getDeferredWriteCoalescingFlushIntervalMillis() {
+        return deferredWriteCoalescingFlushIntervalMillis;
+    }
+
+    public int getDeferredWriteCoalescingMaxBatchSize() {
+        return deferredWriteCoalescingMaxBatchSize;
+    }
+
+    public int getDeferredWriteCoalescingMaxStalenessMillis() {
+        return deferredWriteCoalescingMaxStalenessMillis;
+    }
+
+    public boolean isDeferredWriteTrackMutations() {
+        return deferredWriteTrackMutations;
+    }
+
+    public String getAttributeCodec() {
+        return attributeCodec;
+    }
+
+    public int getAttributeCodecThreshold() {
+        return attributeCodecThreshold;
+    }
+
+    public Set<String> getAttributeDecodingCodecs() {
+        return attributeDecodingCodecs;
+    }
+
+    public boolean isPackedSessionState() {
+        return packedSessionState;
+    }
+
+    public boolean isLocalPartitionSessionIds() {
+        return localPartitionSessionIds;
+    }
+
+    public InMemoryFormat getInMemoryFormat() {
+        return inMemoryFormat;
+    }
+
+    public int getMaxLocalSessions() {
+        return maxLocalSessions;
+    }
+
+    public int getLocalSessionMaxIdleSeconds() {
+        return localSessionMaxIdleSeconds;
+    }
+
+    public int getDetachedSessionMaxIdleSeconds() {
+        return detachedSessionMaxIdleSeconds;
+    }
+
+    public int getLocalCacheOffHeapSizeMb() {
+        return localCacheOffHeapSizeMb;
+    }
+
     public boolean isUseRequestParameter() {
         return useRequestParameter;
     }
 
+    public boolean isUseNearCache() {
+        return useNearCache;
+    }
+
     public Set<String> getTransientAttributes() {
         return transientAttributes;
     }
 
+    public Set<String> getHotAttributes() {
+        return hotAttributes;
+    }
+
     public String getCookieName() {
         return cookieName;
     }
@@ -300,6 +656,10 @@ public final class WebFilterConfig {
         return cookieMaxAge;
     }
 
+    public boolean isCookieHeaderParsing() {
+        return cookieHeaderParsing;
+    }
+
     public boolean isKeepRemoteActive() {
         return keepRemoteActive;
     }
@@ -326,6 +686,14 @@ public final class WebFilterConfig {
         }
     }
 
+    private static int getPositiveInt(FilterConfig filterConfig, Properties properties, String paramName, int defaultValue) {
+        int value = getInt(filterConfig, properties, paramName, defaultValue);
+        if (value <= 0) {
+            throw new InvalidConfigurationException(paramName + " needs to be a positive integer: (" + value + ")");
+        }
+        return value;
+    }
+
     private static String getString(FilterConfig filterConfig, Properties properties, String paramName, String defaultValue) {
         String value = getValue(filterConfig, properties, paramName);
         if (StringUtil.isNullOrEmptyAfterTrim(value)) {
@@ -335,6 +703,18 @@ public final class WebFilterConfig {
         }
     }
 
+    private static InMemoryFormat getInMemoryFormat(FilterConfig filterConfig, Properties properties) {
+        String value = getString(filterConfig, properties, IN_MEMORY_FORMAT, null);
+        if (value == null) {
+            return null;
+        }
+        String format = StringUtil.upperCaseInternal(value.trim());
+        if (!InMemoryFormat.BINARY.name().equals(format) && !InMemoryFormat.OBJECT.name().equals(format)) {
+            throw new InvalidConfigurationException(IN_MEMORY_FORMAT + " needs to be BINARY or OBJECT: (" + value + ")");
+        }
+        return InMemoryFormat.valueOf(format);
+    }
+
     private static Set<String> getStringSet(FilterConfig filterConfig, Properties properties, String paramName) {
         String value = getValue(filterConfig, properties, paramName);
         if (StringUtil.isNullOrEmptyAfterTrim(value)) {
@@ -411,7 +791,8 @@ public final class WebFilterConfig {
         }
 
         if (useClient) {
-            List<String> wrongParams = parametersExist(filterConfig, properties, SESSION_TTL_SECONDS, CONFIG_LOCATION);
+            List<String> wrongParams = parametersExist(filterConfig, properties, SESSION_TTL_SECONDS, CONFIG_LOCATION,
+                    LOCAL_PARTITION_SESSION_IDS);
             if (!wrongParams.isEmpty()) {
                 StringBuilder errorMsgBuilder = new StringBuilder("The following parameters cannot be used when "
                         + USE_CLIENT + " is set to 'true': [");
@@ -15,11 +15,13 @@
 
 package com.hazelcast.web.entryprocessor;
 
+import com.hazelcast.core.ReadOnly;
 import com.hazelcast.internal.serialization.Data;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.AttributeNameDictionary;
 import com.hazelcast.web.SessionState;
 import com.hazelcast.web.WebDataSerializerHook;
 
@@ -28,13 +30,26 @@ import java.util.Map;
 
 /**
  * Entry processor which return attributes of SessionState values
+ * <p>
+ * The processor is {@link ReadOnly}: reading an attribute does not rewrite the entry
+ * or replicate it to the backups. The idle time of the session is still reset, since
+ * Hazelcast records an access for read-only entry processors. It is intentionally not
+ * {@link com.hazelcast.core.Offloadable}, as offloaded read-only processors do not
+ * record that access.
+ * <p>
+ * The processor is written with the {@link WebDataSerializerHook#GET_ATTRIBUTE_V2}
+ * class id. The form written with {@link WebDataSerializerHook#GET_ATTRIBUTE} by
+ * older members is still read, see {@link #readingLegacyForm()}.
  */
 
 public final class GetAttributeEntryProcessor implements EntryProcessor<String, SessionState, Data>,
-        IdentifiedDataSerializable {
+        IdentifiedDataSerializable, ReadOnly {
 
     String attributeName;
 
+    // whether readData reads the attribute name without encoding
+    private transient boolean legacyForm;
+
     public GetAttributeEntryProcessor(String attributeName) {
         this.attributeName = attributeName;
     }
@@ -43,6 +58,15 @@ public final class GetAttributeEntryProcessor implements EntryProcessor<String,
         this(null);
     }
 
+    /**
+     * @return a processor reading the form written with the {@link WebDataSerializerHook#GET_ATTRIBUTE} class id
+     */
+    public static GetAttributeEntryProcessor readingLegacyForm() {
+        GetAttributeEntryProcessor processor = new GetAttributeEntryProcessor();
+        processor.legacyForm = true;
+        return processor;
+    }
+
     @Override
     public int getFactoryId() {
         return WebDataSerializerHook.F_ID;
@@ -50,7 +74,7 @@ public final class GetAttributeEntryProcessor implements EntryProcessor<String,
 
     @Override
     public int getClassId() {
-        return WebDataSerializerHook.GET_ATTRIBUTE;
+        return WebDataSerializerHook.GET_ATTRIBUTE_V2;
     }
 
     @Override
@@ -59,17 +83,21 @@ public final class GetAttributeEntryProcessor implements EntryProcessor<String,
         if (sessionState == null) {
             return null;
         }
-        entry.setValue(sessionState);
-        return sessionState.getAttributes().get(attributeName);
+        return sessionState.getAttribute(attributeName);
+    }
+
+    @Override
+    public EntryProcessor<String, SessionState, Data> getBackupProcessor() {
+        return null;
     }
 
     @Override
     public void readData(ObjectDataInput in) throws IOException {
-        attributeName = in.readString();
+        attributeName = legacyForm ? in.readString() : AttributeNameDictionary.readName(in);
     }
 
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
-        out.writeString(attributeName);
+        AttributeNameDictionary.writeName(out, attributeName);
     }
 }
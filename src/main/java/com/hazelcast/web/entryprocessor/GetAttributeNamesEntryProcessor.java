@@ -15,6 +15,7 @@
 
 package com.hazelcast.web.entryprocessor;
 
+import com.hazelcast.core.ReadOnly;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
@@ -28,10 +29,12 @@ import java.util.Set;
 
 /**
  * Entry processor which return attributes keySet of SessionState values
+ * <p>
+ * Read-only, see {@link GetAttributeEntryProcessor}.
  */
 
 public final class GetAttributeNamesEntryProcessor implements EntryProcessor<String, SessionState, Set<String>>,
-        IdentifiedDataSerializable {
+        IdentifiedDataSerializable, ReadOnly {
 
     public GetAttributeNamesEntryProcessor() {
     }
@@ -52,10 +55,14 @@ public final class GetAttributeNamesEntryProcessor implements EntryProcessor<Str
         if (sessionState == null) {
             return null;
         }
-        entry.setValue(sessionState);
         return new HashSet<>(sessionState.getAttributes().keySet());
     }
 
+    @Override
+    public EntryProcessor<String, SessionState, Set<String>> getBackupProcessor() {
+        return null;
+    }
+
     @Override
     public void writeData(ObjectDataOutput out) {
     }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web.entryprocessor;
+
+import com.hazelcast.core.ReadOnly;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.AttributeNameDictionary;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Entry processor which returns several attributes of the SessionState stored
+ * in distributed map with a single call, see {@link SessionState#select(Set)}
+ * <p>
+ * Read-only, see {@link GetAttributeEntryProcessor}.
+ */
+
+public final class GetAttributesEntryProcessor implements EntryProcessor<String, SessionState, Object>,
+        IdentifiedDataSerializable, ReadOnly {
+
+    private Set<String> attributeNames;
+
+    public GetAttributesEntryProcessor(Set<String> attributeNames) {
+        this.attributeNames = attributeNames;
+    }
+
+    public GetAttributesEntryProcessor() {
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WebDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return WebDataSerializerHook.GET_ATTRIBUTES;
+    }
+
+    @Override
+    public Object process(Map.Entry<String, SessionState> entry) {
+        SessionState sessionState = entry.getValue();
+        if (sessionState == null) {
+            return null;
+        }
+        return sessionState.select(attributeNames);
+    }
+
+    @Override
+    public EntryProcessor<String, SessionState, Object> getBackupProcessor() {
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(attributeNames.size());
+        for (String attributeName : attributeNames) {
+            AttributeNameDictionary.writeName(out, attributeName);
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int attributeCount = in.readInt();
+        attributeNames = new HashSet<>(attributeCount);
+        for (int i = 0; i < attributeCount; i++) {
+            attributeNames.add(AttributeNameDictionary.readName(in));
+        }
+    }
+}
@@ -15,6 +15,7 @@
 
 package com.hazelcast.web.entryprocessor;
 
+import com.hazelcast.core.ReadOnly;
 import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
@@ -26,10 +27,12 @@ import java.util.Map;
 
 /**
  * Entry processor which return SessionState object stored in distributed map
+ * <p>
+ * Read-only, see {@link GetAttributeEntryProcessor}.
  */
 
 public final class GetSessionStateEntryProcessor implements EntryProcessor<String, SessionState, Object>,
-        IdentifiedDataSerializable {
+        IdentifiedDataSerializable, ReadOnly {
 
     @Override
     public int getFactoryId() {
@@ -47,8 +50,13 @@ public final class GetSessionStateEntryProcessor implements EntryProcessor<Strin
         if (sessionState == null) {
             return null;
         }
-        entry.setValue(sessionState);
-        return sessionState;
+        // a copy, since with the OBJECT in-memory format the stored state is updated in place
+        return sessionState.changesSince(-1);
+    }
+
+    @Override
+    public EntryProcessor<String, SessionState, Object> getBackupProcessor() {
+        return null;
     }
 
     @Override
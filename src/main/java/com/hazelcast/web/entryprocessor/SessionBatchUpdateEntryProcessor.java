@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web.entryprocessor;
+
+import com.hazelcast.internal.nio.IOUtil;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.AttributeNameDictionary;
+import com.hazelcast.web.PackedSessionState;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry processor which applies the attribute updates of many sessions, so the
+ * updates of all sessions owned by a member can be sent with one operation.
+ * The updates of each session are applied like {@link SessionUpdateEntryProcessor} does.
+ * <p>
+ * One instance is shared by the operations of all partitions of a member, which
+ * process the keys concurrently. Hazelcast does not tell the processor which
+ * partition asks for its backup processor, so the backup processor carries the
+ * changed attributes of all sessions of the member which changed so far. The
+ * backup operation of a partition only processes the keys of its partition, so
+ * each backup replica applies the changes of its own sessions.
+ */
+public final class SessionBatchUpdateEntryProcessor
+        implements EntryProcessor<String, SessionState, Object>, IdentifiedDataSerializable {
+
+    private Map<String, Map<String, Data>> sessions;
+
+    // whether the sessions created by this processor are stored as PackedSessionState
+    private boolean packedState;
+
+    // sessions changed on the primary replica, filled by process
+    private final transient Map<String, Map<String, Data>> changedSessions = new ConcurrentHashMap<>();
+
+    public SessionBatchUpdateEntryProcessor(Map<String, Map<String, Data>> sessions) {
+        this.sessions = sessions;
+    }
+
+    public SessionBatchUpdateEntryProcessor() {
+        sessions = Collections.emptyMap();
+    }
+
+    public Map<String, Map<String, Data>> getSessions() {
+        return sessions;
+    }
+
+    public boolean isPackedState() {
+        return packedState;
+    }
+
+    public void setPackedState(boolean packedState) {
+        this.packedState = packedState;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WebDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return WebDataSerializerHook.SESSION_BATCH_UPDATE;
+    }
+
+    @Override
+    public Object process(Map.Entry<String, SessionState> entry) {
+        Map<String, Data> attributes = sessions.get(entry.getKey());
+        if (attributes == null) {
+            return null;
+        }
+        SessionState sessionState = entry.getValue();
+        if (sessionState == null) {
+            sessionState = packedState ? new PackedSessionState() : new SessionState();
+            sessionState.update(attributes);
+            changedSessions.put(entry.getKey(), attributes);
+            entry.setValue(sessionState);
+            return null;
+        }
+        Map<String, Data> changedAttributes = sessionState.update(attributes);
+        if (!changedAttributes.isEmpty()) {
+            changedSessions.put(entry.getKey(), changedAttributes);
+            entry.setValue(sessionState);
+        }
+        return null;
+    }
+
+    @Override
+    public EntryProcessor<String, SessionState, Object> getBackupProcessor() {
+        if (changedSessions.isEmpty()) {
+            return null;
+        }
+        // a copy, since the operations of other partitions keep adding sessions
+        SessionBatchUpdateEntryProcessor backupProcessor = new SessionBatchUpdateEntryProcessor(new HashMap<>(changedSessions));
+        backupProcessor.packedState = packedState;
+        return backupProcessor;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(sessions.size());
+        for (Map.Entry<String, Map<String, Data>> session : sessions.entrySet()) {
+            out.writeString(session.getKey());
+            out.writeInt(session.getValue().size());
+            for (Map.Entry<String, Data> entry : session.getValue().entrySet()) {
+                AttributeNameDictionary.writeName(out, entry.getKey());
+                IOUtil.writeData(out, entry.getValue());
+            }
+        }
+        out.writeBoolean(packedState);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int sessionCount = in.readInt();
+        sessions = new HashMap<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            String sessionId = in.readString();
+            int attCount = in.readInt();
+            Map<String, Data> attributes = new HashMap<>(attCount);
+            for (int j = 0; j < attCount; j++) {
+                attributes.put(AttributeNameDictionary.readName(in), IOUtil.readData(in));
+            }
+            sessions.put(sessionId, attributes);
+        }
+        packedState = in.readBoolean();
+    }
+}
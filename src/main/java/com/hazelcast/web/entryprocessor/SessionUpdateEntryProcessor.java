@@ -21,6 +21,8 @@ import com.hazelcast.map.EntryProcessor;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.AttributeNameDictionary;
+import com.hazelcast.web.PackedSessionState;
 import com.hazelcast.web.SessionState;
 import com.hazelcast.web.WebDataSerializerHook;
 
@@ -33,6 +35,14 @@ import java.util.Map;
  * Entry processor which updates SessionState attributes stored in distributed map
  * If value of attribute is set to null. It is removed from SessionState.attribute map.
  * See SessionUpdateEntryProcessor.process
+ * <p>
+ * Backup replicas only receive the attributes which actually changed on the primary
+ * replica, and nothing at all if the update did not change the stored state.
+ * See SessionUpdateEntryProcessor.getBackupProcessor
+ * <p>
+ * The processor is written with the {@link WebDataSerializerHook#SESSION_UPDATE_V2}
+ * class id. The form written with {@link WebDataSerializerHook#SESSION_UPDATE} by
+ * older members is still read, see {@link #readingLegacyForm()}.
  */
 
 public final class SessionUpdateEntryProcessor
@@ -40,6 +50,15 @@ public final class SessionUpdateEntryProcessor
 
     private Map<String, Data> attributes;
 
+    // whether a session created by this processor is stored as a PackedSessionState
+    private boolean packedState;
+
+    // whether readData reads the form without attribute name encoding and packed state flag
+    private transient boolean legacyForm;
+
+    // attributes changed on the primary replica, set by process
+    private transient Map<String, Data> changedAttributes;
+
     public SessionUpdateEntryProcessor(int size) {
         this.attributes = new HashMap<>(size);
     }
@@ -53,10 +72,31 @@ public final class SessionUpdateEntryProcessor
         attributes = Collections.emptyMap();
     }
 
+    private SessionUpdateEntryProcessor(Map<String, Data> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * @return a processor reading the form written with the {@link WebDataSerializerHook#SESSION_UPDATE} class id
+     */
+    public static SessionUpdateEntryProcessor readingLegacyForm() {
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor();
+        processor.legacyForm = true;
+        return processor;
+    }
+
     public Map<String, Data> getAttributes() {
         return attributes;
     }
 
+    public boolean isPackedState() {
+        return packedState;
+    }
+
+    public void setPackedState(boolean packedState) {
+        this.packedState = packedState;
+    }
+
     @Override
     public int getFactoryId() {
         return WebDataSerializerHook.F_ID;
@@ -64,35 +104,47 @@ public final class SessionUpdateEntryProcessor
 
     @Override
     public int getClassId() {
-        return WebDataSerializerHook.SESSION_UPDATE;
+        return WebDataSerializerHook.SESSION_UPDATE_V2;
     }
 
     @Override
     public Object process(Map.Entry<String, SessionState> entry) {
         SessionState sessionState = entry.getValue();
         if (sessionState == null) {
-            sessionState = new SessionState();
+            sessionState = packedState ? new PackedSessionState() : new SessionState();
+            sessionState.update(attributes);
+            changedAttributes = attributes;
+            entry.setValue(sessionState);
+            return Boolean.TRUE;
         }
-        for (Map.Entry<String, Data> attribute : attributes.entrySet()) {
-            String name = attribute.getKey();
-            Data value = attribute.getValue();
-            if (value == null) {
-                sessionState.getAttributes().remove(name);
-            } else {
-                sessionState.getAttributes().put(name, value);
-            }
+        changedAttributes = sessionState.update(attributes);
+        if (!changedAttributes.isEmpty()) {
+            entry.setValue(sessionState);
         }
-        entry.setValue(sessionState);
         return Boolean.TRUE;
     }
 
+    @Override
+    public EntryProcessor<String, SessionState, Object> getBackupProcessor() {
+        if (changedAttributes == null || changedAttributes == attributes) {
+            return this;
+        }
+        if (changedAttributes.isEmpty()) {
+            return null;
+        }
+        SessionUpdateEntryProcessor backupProcessor = new SessionUpdateEntryProcessor(changedAttributes);
+        backupProcessor.packedState = packedState;
+        return backupProcessor;
+    }
+
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
         out.writeInt(attributes.size());
         for (Map.Entry<String, Data> entry : attributes.entrySet()) {
-            out.writeString(entry.getKey());
+            AttributeNameDictionary.writeName(out, entry.getKey());
             IOUtil.writeData(out, entry.getValue());
         }
+        out.writeBoolean(packedState);
     }
 
     @Override
@@ -100,7 +152,9 @@ public final class SessionUpdateEntryProcessor
         int attCount = in.readInt();
         attributes = new HashMap<>(attCount);
         for (int i = 0; i < attCount; i++) {
-            attributes.put(in.readString(), IOUtil.readData(in));
+            String name = legacyForm ? in.readString() : AttributeNameDictionary.readName(in);
+            attributes.put(name, IOUtil.readData(in));
         }
+        packedState = !legacyForm && in.readBoolean();
     }
 }
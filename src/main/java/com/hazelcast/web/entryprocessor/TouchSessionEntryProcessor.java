@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.web.entryprocessor;
+
+import com.hazelcast.core.ReadOnly;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+
+import java.util.Map;
+
+/**
+ * Entry processor which only accesses a SessionState entry, so its idle time is
+ * reset on the member owning it. It returns nothing, so the response does not
+ * depend on the size of the session.
+ * <p>
+ * Read-only, see {@link GetAttributeEntryProcessor}.
+ */
+
+public final class TouchSessionEntryProcessor implements EntryProcessor<String, SessionState, Void>,
+        IdentifiedDataSerializable, ReadOnly {
+
+    public TouchSessionEntryProcessor() {
+    }
+
+    @Override
+    public int getFactoryId() {
+        return WebDataSerializerHook.F_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return WebDataSerializerHook.TOUCH_SESSION;
+    }
+
+    @Override
+    public Void process(Map.Entry<String, SessionState> entry) {
+        return null;
+    }
+
+    @Override
+    public EntryProcessor<String, SessionState, Void> getBackupProcessor() {
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) {
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) {
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AttributeNameDictionaryTest {
+
+    private static final String SECURITY_CONTEXT = "SPRING_SECURITY_CONTEXT";
+    private static final String FLASH_MAPS = "org.springframework.web.servlet.support.SessionFlashMapManager.FLASH_MAPS";
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testSessionState_roundTrip() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes(SECURITY_CONTEXT, FLASH_MAPS, "cart", ""));
+
+        SessionState copy = ss.toObject(ss.toData(sessionState));
+
+        assertEquals(sessionState.getAttributes(), copy.getAttributes());
+    }
+
+    @Test
+    public void testSessionUpdateEntryProcessor_roundTrip() {
+        SessionUpdateEntryProcessor processor = updateProcessor(SECURITY_CONTEXT, "cart");
+
+        SessionUpdateEntryProcessor copy = ss.toObject(ss.toData(processor));
+
+        assertEquals(processor.getAttributes(), copy.getAttributes());
+    }
+
+    @Test
+    public void testDictionaryNames_areWrittenAsIndexes() {
+        SessionUpdateEntryProcessor known = updateProcessor(FLASH_MAPS);
+        SessionUpdateEntryProcessor unknown = updateProcessor(FLASH_MAPS + "_");
+
+        int knownSize = ss.toData(known).totalSize();
+        int unknownSize = ss.toData(unknown).totalSize();
+
+        assertTrue("known: " + knownSize + " bytes, unknown: " + unknownSize + " bytes",
+                knownSize + FLASH_MAPS.length() < unknownSize);
+    }
+
+    private SessionUpdateEntryProcessor updateProcessor(String... names) {
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor(names.length);
+        processor.getAttributes().putAll(attributes(names));
+        return processor;
+    }
+
+    private Map<String, Data> attributes(String... names) {
+        Map<String, Data> attributes = new HashMap<>();
+        for (String name : names) {
+            attributes.put(name, ss.toData(name.length()));
+        }
+        return attributes;
+    }
+}
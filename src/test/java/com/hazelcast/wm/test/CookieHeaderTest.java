@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.web.CookieHeader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CookieHeaderTest {
+
+    private static final String NAME = "hazelcast.sessionId";
+
+    @Test
+    public void testFindValue() {
+        assertEquals("HZ1", CookieHeader.findValue("hazelcast.sessionId=HZ1", NAME));
+        assertEquals("HZ1", CookieHeader.findValue("JSESSIONID=abc; hazelcast.sessionId=HZ1; theme=dark", NAME));
+        assertEquals("HZ1", CookieHeader.findValue("JSESSIONID=abc;hazelcast.sessionId = HZ1 ;theme=dark", NAME));
+    }
+
+    @Test
+    public void testFindValue_ignoresNameCase() {
+        assertEquals("HZ1", CookieHeader.findValue("Hazelcast.SessionId=HZ1", NAME));
+    }
+
+    @Test
+    public void testFindValue_removesQuotes() {
+        assertEquals("HZ1", CookieHeader.findValue("hazelcast.sessionId=\"HZ1\"", NAME));
+    }
+
+    @Test
+    public void testFindValue_returnsFirstValue() {
+        assertEquals("HZ1", CookieHeader.findValue("hazelcast.sessionId=HZ1; hazelcast.sessionId=HZ2", NAME));
+    }
+
+    @Test
+    public void testFindValue_withoutCookie() {
+        assertNull(CookieHeader.findValue(null, NAME));
+        assertNull(CookieHeader.findValue("", NAME));
+        assertNull(CookieHeader.findValue("JSESSIONID=abc; theme=dark", NAME));
+        // the name of the cookie is a prefix of the other names, or of another value
+        assertNull(CookieHeader.findValue("hazelcast.sessionIdOld=HZ1; other=hazelcast.sessionId", NAME));
+    }
+}
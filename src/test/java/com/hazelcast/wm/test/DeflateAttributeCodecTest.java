@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.nio.serialization.HazelcastSerializationException;
+import com.hazelcast.web.DeflateAttributeCodec;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeflateAttributeCodecTest {
+
+    private final DeflateAttributeCodec codec = new DeflateAttributeCodec();
+
+    @Test
+    public void testRoundTrip() {
+        byte[] bytes = "<order><item>book</item><item>pen</item></order>".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = codec.encode(bytes);
+
+        assertTrue("encoded: " + encoded.length + " bytes", encoded.length * 10 < bytes.length);
+        assertArrayEquals(bytes, codec.decode(encoded));
+    }
+
+    @Test
+    public void testRoundTrip_empty() {
+        assertArrayEquals(new byte[0], codec.decode(codec.encode(new byte[0])));
+    }
+
+    @Test(expected = HazelcastSerializationException.class)
+    public void testDecode_truncated() {
+        byte[] encoded = codec.encode("<order><item>book</item></order>".repeat(1000).getBytes(StandardCharsets.UTF_8));
+
+        codec.decode(Arrays.copyOf(encoded, encoded.length / 2));
+    }
+
+    @Test(expected = HazelcastSerializationException.class)
+    public void testDecode_negativeLength() {
+        byte[] encoded = codec.encode("<order><item>book</item></order>".getBytes(StandardCharsets.UTF_8));
+        ByteBuffer.wrap(encoded).putInt(-1);
+
+        codec.decode(encoded);
+    }
+
+    @Test(expected = HazelcastSerializationException.class)
+    public void testDecode_lengthLargerThanInflated_doesNotAllocateLength() {
+        byte[] encoded = codec.encode("<order><item>book</item></order>".getBytes(StandardCharsets.UTF_8));
+        ByteBuffer.wrap(encoded).putInt(Integer.MAX_VALUE);
+
+        codec.decode(encoded);
+    }
+}
@@ -5,7 +5,11 @@ import org.apache.http.client.CookieStore;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public abstract class KeepRemoteActiveTest extends AbstractWebFilterTest {
 
@@ -37,6 +41,29 @@ public abstract class KeepRemoteActiveTest extends AbstractWebFilterTest {
         assertEquals(1, map.size());
     }
 
+    @Test
+    public void testSessionReadFromLocalCache_isNotExpired_andTouchedInBatches() throws Exception {
+        // max-idle-second is 20 seconds on the map, so server1 touches the session every 5 seconds.
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        String sessionId = findHazelcastSessionId(map);
+
+        // The reads are served from the local cache for longer than the max-idle time.
+        int reads = 50;
+        Set<Long> expirationTimes = new HashSet<>();
+        for (int i = 0; i < reads; i++) {
+            assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+            Thread.sleep(500);
+            expirationTimes.add(map.getEntryView(sessionId).getExpirationTime());
+        }
+        assertEquals(1, map.size());
+        // Each touch moves the expiration time; the session was touched by the
+        // periodic batches, not once per read.
+        assertTrue("touched " + expirationTimes.size() + " times",
+                expirationTimes.size() > 1 && expirationTimes.size() < reads / 5);
+    }
+
     @Test
     public void testKeepRemoteActiveWhenDisabled() throws Exception {
         // max-idle-second is 20 seconds on the map.
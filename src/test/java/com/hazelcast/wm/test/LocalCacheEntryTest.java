@@ -0,0 +1,156 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.web.LocalCacheEntry;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LocalCacheEntryTest {
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+    private final AtomicInteger deserializations = new AtomicInteger();
+    private final Function<Data, Object> deserializer = data -> {
+        deserializations.incrementAndGet();
+        return ss.toObject(data);
+    };
+
+    @Test
+    public void testSerializedValue_isDeserializedOnFirstRead() {
+        Data data = ss.toData("value");
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(data);
+
+        assertTrue(entry.hasValue());
+        assertEquals(0, deserializations.get());
+        assertEquals("value", entry.getValue(deserializer));
+        assertEquals("value", entry.getValue(deserializer));
+        assertEquals(1, deserializations.get());
+        assertSame(data, entry.getSerializedValue());
+    }
+
+    @Test
+    public void testSetValue_dropsSerializedValue() {
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(ss.toData("value"));
+
+        entry.setValue("value-updated");
+
+        assertNull(entry.getSerializedValue());
+        assertEquals("value-updated", entry.getValue(deserializer));
+        assertEquals(0, deserializations.get());
+    }
+
+    @Test
+    public void testClusterValue_isKept_whenValueIsReplaced() {
+        Data data = ss.toData("value");
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(data);
+
+        entry.setValue("value");
+
+        assertNull(entry.getSerializedValue());
+        assertSame(data, entry.getClusterValue());
+        assertEquals(data, ss.toData(entry.getValue()));
+    }
+
+    @Test
+    public void testSetWritten() {
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        String value = "value";
+        entry.setValue(value);
+        Data data = ss.toData(value);
+
+        entry.setWritten(value, data);
+
+        assertSame(data, entry.getClusterValue());
+        assertSame(data, entry.getSerializedValue());
+    }
+
+    @Test
+    public void testSetWritten_afterValueIsReplaced() {
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        String value = "value";
+        entry.setValue(value);
+        Data data = ss.toData(value);
+        entry.setValue("value-updated");
+
+        entry.setWritten(value, data);
+
+        assertSame(data, entry.getClusterValue());
+        assertNull(entry.getSerializedValue());
+        assertEquals("value-updated", entry.getValue());
+    }
+
+    @Test
+    public void testNullSerializedValue() {
+        LocalCacheEntry entry = new LocalCacheEntry(false, "value");
+        entry.setSerializedValue(null);
+
+        assertFalse(entry.hasValue());
+        assertNull(entry.getValue(deserializer));
+        assertEquals(0, deserializations.get());
+    }
+
+    @Test
+    public void testFlags_areChangedIndependently() {
+        LocalCacheEntry entry = new LocalCacheEntry(true);
+        assertTrue(entry.isReload());
+
+        entry.setReload(false);
+        entry.setDirty(true);
+        entry.setAccessed(true);
+        entry.setRemoved(true);
+        entry.setAccessed(false);
+
+        assertTrue(entry.isTransient());
+        assertFalse(entry.isReload());
+        assertFalse(entry.isAccessed());
+        assertTrue(entry.isRemoved());
+        // transient entries are never written to the cluster
+        assertFalse(entry.isDirty());
+    }
+
+    @Test
+    public void testFlags_concurrentChanges() throws InterruptedException {
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        Thread accessor = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++) {
+                entry.setAccessed(i % 2 == 0);
+            }
+        });
+        accessor.start();
+        for (int i = 0; i < 100_000; i++) {
+            entry.setDirty(i % 2 == 0);
+        }
+        accessor.join();
+
+        assertFalse(entry.isDirty());
+        assertFalse(entry.isAccessed());
+        assertTrue(entry.isReload());
+    }
+}
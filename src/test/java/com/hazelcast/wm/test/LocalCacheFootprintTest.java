@@ -0,0 +1,189 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.web.LocalCache;
+import com.hazelcast.web.LocalCacheEntry;
+import net.bytebuddy.agent.ByteBuddyAgent;
+import org.junit.Test;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the heap the local cache of a session takes for its attributes, against
+ * the {@link ConcurrentHashMap} of entries with boolean flags it replaced. The sizes
+ * of the objects are taken from the running JVM with {@link Instrumentation}, and do
+ * not include the names and the values of the attributes, which both forms share.
+ * The internals of the map cannot be read, so the baseline adds up the map, its
+ * table and a node per entry, as the map lays them out.
+ */
+public class LocalCacheFootprintTest {
+
+    private static final Instrumentation INSTRUMENTATION = ByteBuddyAgent.install();
+
+    @Test
+    public void testSessionWithOneAttribute_takesLessHeapThanBaseline() {
+        assertSmallerThanBaseline(1);
+    }
+
+    @Test
+    public void testSessionWithFewAttributes_takesLessHeapThanBaseline() {
+        assertSmallerThanBaseline(5);
+    }
+
+    @Test
+    public void testSessionWithMaxScannedAttributes_takesLessHeapThanBaseline() {
+        assertSmallerThanBaseline(LocalCache.MAX_SCANNED_SIZE);
+    }
+
+    @Test
+    public void testSessionWithHashedAttributes_takesLessHeapThanBaseline() {
+        assertSmallerThanBaseline(LocalCache.MAX_SCANNED_SIZE + 1);
+    }
+
+    @Test
+    public void testSessionWithManyAttributes_takesLessHeapThanBaseline() {
+        for (int attributes = 2 * LocalCache.MAX_SCANNED_SIZE; attributes <= 8 * LocalCache.MAX_SCANNED_SIZE;
+             attributes++) {
+            assertSmallerThanBaseline(attributes);
+        }
+    }
+
+    private static void assertSmallerThanBaseline(int attributes) {
+        long size = localCacheSize(attributes);
+        long baselineSize = baselineSize(attributes);
+
+        assertTrue("local cache of " + attributes + " attributes takes " + size
+                + " bytes, the baseline takes " + baselineSize + " bytes", size < baselineSize);
+    }
+
+    private static long localCacheSize(int attributes) {
+        Set<Object> shared = newIdentitySet();
+        LocalCache cache = new LocalCache();
+        for (int i = 0; i < attributes; i++) {
+            String name = "attribute-" + i;
+            Object value = "value-" + i;
+            shared.add(name);
+            shared.add(value);
+            cache.put(name, new LocalCacheEntry(false, value));
+        }
+        return deepSize(cache, shared);
+    }
+
+    private static long baselineSize(int attributes) {
+        // the table starts with 16 bins and doubles when it is three quarters full
+        int tableLength = 16;
+        while (attributes >= tableLength - (tableLength >>> 2)) {
+            tableLength <<= 1;
+        }
+        long entrySize = size(new BaselineNode()) + size(new BaselineLocalCacheEntry(false));
+        return size(new ConcurrentHashMap<>()) + size(new Object[tableLength]) + attributes * entrySize;
+    }
+
+    private static long deepSize(Object root, Set<Object> excluded) {
+        Set<Object> visited = newIdentitySet();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            if (excluded.contains(object) || !visited.add(object)) {
+                continue;
+            }
+            size += size(object);
+            Class<?> type = object.getClass();
+            if (type.isArray()) {
+                if (!type.getComponentType().isPrimitive()) {
+                    for (int i = 0; i < Array.getLength(object); i++) {
+                        pushIfNotNull(pending, Array.get(object, i));
+                    }
+                }
+                continue;
+            }
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    // the fields of the JDK cannot be read, like the views AbstractMap creates on first use
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()
+                            && field.trySetAccessible()) {
+                        pushIfNotNull(pending, get(field, object));
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long size(Object object) {
+        return INSTRUMENTATION.getObjectSize(object);
+    }
+
+    private static Object get(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void pushIfNotNull(Deque<Object> pending, Object object) {
+        if (object != null) {
+            pending.push(object);
+        }
+    }
+
+    private static Set<Object> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * The fields of a node of {@link ConcurrentHashMap}.
+     */
+    @SuppressWarnings("unused")
+    private static class BaselineNode {
+        int hash;
+        Object key;
+        volatile Object val;
+        volatile BaselineNode next;
+    }
+
+    /**
+     * The fields of {@link LocalCacheEntry} before its flags were packed.
+     */
+    @SuppressWarnings("unused")
+    private static class BaselineLocalCacheEntry {
+        volatile boolean reload;
+        volatile boolean removed;
+        Object value;
+        volatile boolean dirty;
+        final boolean transientEntry;
+
+        BaselineLocalCacheEntry(boolean transientEntry) {
+            this.transientEntry = transientEntry;
+            this.reload = true;
+        }
+    }
+}
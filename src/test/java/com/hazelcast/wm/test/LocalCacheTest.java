@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.web.LocalCache;
+import com.hazelcast.web.LocalCacheEntry;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LocalCacheTest {
+
+    private final LocalCache cache = new LocalCache();
+
+    @Test
+    public void testPutAndGet() {
+        LocalCacheEntry entry = new LocalCacheEntry(false, "value");
+        LocalCacheEntry replacement = new LocalCacheEntry(false, "value-updated");
+
+        assertNull(cache.put("name", entry));
+        assertSame(entry, cache.put("name", replacement));
+
+        assertSame(replacement, cache.get("name"));
+        assertTrue(cache.containsKey("name"));
+        assertFalse(cache.containsKey("missing"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testComputeIfAbsent() {
+        LocalCacheEntry entry = cache.computeIfAbsent("name", name -> new LocalCacheEntry(false));
+
+        assertSame(entry, cache.computeIfAbsent("name", name -> new LocalCacheEntry(true)));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testEntries_areKept_whenHashed() {
+        Map<String, LocalCacheEntry> expected = new HashMap<>();
+        // grows the hashed table a few times
+        for (int i = 0; i < 8 * LocalCache.MAX_SCANNED_SIZE; i++) {
+            LocalCacheEntry entry = new LocalCacheEntry(false, i);
+            expected.put("attribute-" + i, entry);
+            cache.put("attribute-" + i, entry);
+        }
+
+        assertEquals(expected, new HashMap<>(cache));
+        assertEquals(expected.keySet(), cache.keySet());
+        assertEquals(expected.size(), cache.size());
+        assertEquals(expected.size(), cache.entrySet().size());
+        assertSame(expected.get("attribute-0"), cache.get("attribute-0"));
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    public void testPut_replacesEntry_whenHashed() {
+        for (int i = 0; i <= LocalCache.MAX_SCANNED_SIZE; i++) {
+            cache.put("attribute-" + i, new LocalCacheEntry(false, i));
+        }
+        LocalCacheEntry replacement = new LocalCacheEntry(false, "value-updated");
+
+        cache.put("attribute-1", replacement);
+
+        assertSame(replacement, cache.get("attribute-1"));
+        assertEquals(LocalCache.MAX_SCANNED_SIZE + 1, cache.size());
+    }
+
+    @Test
+    public void testEntrySet_isSnapshot() {
+        cache.put("name", new LocalCacheEntry(false));
+        Map<String, LocalCacheEntry> snapshot = new HashMap<>();
+        for (Map.Entry<String, LocalCacheEntry> entry : cache.entrySet()) {
+            cache.put("other", new LocalCacheEntry(false));
+            snapshot.put(entry.getKey(), entry.getValue());
+        }
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.web.HazelcastHttpSession;
+import com.hazelcast.web.LocalSessionRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LocalSessionRegistryTest {
+
+    @Test
+    public void testGet_countsHitsAndMisses() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0);
+        HazelcastHttpSession session = session("HZ1");
+        registry.put("original-1", session);
+
+        assertSame(session, registry.get("HZ1"));
+        assertNull(registry.get("HZ2"));
+        assertSame(session, registry.getByOriginalSessionId("original-1"));
+        assertEquals(2, registry.getHitCount());
+        assertEquals(1, registry.getMissCount());
+    }
+
+    @Test
+    public void testGet_findsSessionOnlyByItsKindOfId() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0);
+        registry.put("original-1", session("HZ1"));
+
+        assertNull(registry.get("original-1"));
+        assertNull(registry.getByOriginalSessionId("HZ1"));
+        assertNull(registry.removeOriginalSession("HZ1"));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void testPut_evictsLeastRecentlyUsed_whenFull() throws Exception {
+        LocalSessionRegistry registry = new LocalSessionRegistry(2, 0);
+        registry.put("original-1", session("HZ1"));
+        registry.put("original-2", session("HZ2"));
+        Thread.sleep(5);
+        registry.get("HZ1");
+
+        registry.put("original-3", session("HZ3"));
+
+        assertEquals(2, registry.size());
+        assertEquals(1, registry.getEvictionCount());
+        assertNull(registry.peek("HZ2"));
+        assertNull(registry.getByOriginalSessionId("original-2"));
+        assertEquals("HZ1", registry.getByOriginalSessionId("original-1").getId());
+    }
+
+    @Test
+    public void testGet_evictsIdleSession() throws Exception {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 50);
+        registry.put("original-1", session("HZ1"));
+        Thread.sleep(100);
+
+        assertNull(registry.getByOriginalSessionId("original-1"));
+        assertNull(registry.get("HZ1"));
+        assertEquals(0, registry.size());
+        assertEquals(1, registry.getEvictionCount());
+    }
+
+    @Test
+    public void testPut_evictsIdleSessions() throws Exception {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 50);
+        registry.put("original-1", session("HZ1"));
+        Thread.sleep(100);
+
+        registry.put("original-2", session("HZ2"));
+
+        assertEquals(1, registry.size());
+        assertNull(registry.peek("HZ1"));
+        assertEquals(1, registry.getEvictionCount());
+    }
+
+    @Test
+    public void testDetachedSession_isOnlyReclaimed() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0, 1000);
+        HazelcastHttpSession session = session("HZ1");
+        registry.put("original-1", session);
+        assertSame(session, registry.removeOriginalSession("original-1"));
+
+        assertTrue(registry.detach(session));
+        assertNull(registry.get("HZ1"));
+        assertEquals(1, registry.size());
+
+        assertSame(session, registry.reclaim("HZ1"));
+        assertNull(registry.reclaim("HZ1"));
+        registry.put("original-2", session);
+        assertSame(session, registry.getByOriginalSessionId("original-2"));
+        assertSame(session, registry.get("HZ1"));
+    }
+
+    @Test
+    public void testDetach_whenDetachedSessionsAreNotKept() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0);
+        HazelcastHttpSession session = session("HZ1");
+        registry.put("original-1", session);
+
+        assertFalse(registry.detach(session));
+        assertSame(session, registry.get("HZ1"));
+    }
+
+    @Test
+    public void testReclaim_evictsIdleDetachedSession() throws Exception {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0, 50);
+        HazelcastHttpSession session = session("HZ1");
+        registry.put("original-1", session);
+        registry.removeOriginalSession("original-1");
+        registry.detach(session);
+        Thread.sleep(100);
+
+        assertNull(registry.reclaim("HZ1"));
+        assertEquals(0, registry.size());
+        assertEquals(1, registry.getEvictionCount());
+    }
+
+    @Test
+    public void testDetach_evictsIdleDetachedSessions() throws Exception {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0, 50);
+        HazelcastHttpSession session1 = session("HZ1");
+        HazelcastHttpSession session2 = session("HZ2");
+        registry.put("original-1", session1);
+        registry.put("original-2", session2);
+        registry.removeOriginalSession("original-1");
+        registry.detach(session1);
+        Thread.sleep(100);
+
+        registry.removeOriginalSession("original-2");
+        assertTrue(registry.detach(session2));
+
+        assertEquals(1, registry.size());
+        assertEquals(1, registry.getEvictionCount());
+    }
+
+    private static HazelcastHttpSession session(String id) {
+        HazelcastHttpSession session = mock(HazelcastHttpSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    @Test
+    public void testRemove_removesBothIds() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0);
+        HazelcastHttpSession session = session("HZ1");
+        registry.put("original-1", session);
+
+        registry.remove(session);
+
+        assertNull(registry.getByOriginalSessionId("original-1"));
+        assertNull(registry.get("HZ1"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testPut_withSameSessionId_replacesOriginalSessionId() {
+        LocalSessionRegistry registry = new LocalSessionRegistry(10, 0);
+        HazelcastHttpSession oldSession = session("HZ1");
+        HazelcastHttpSession newSession = session("HZ1");
+        registry.put("original-1", oldSession);
+        registry.put("original-2", newSession);
+
+        assertNull(registry.removeOriginalSession("original-1"));
+        registry.remove(oldSession);
+
+        assertSame(newSession, registry.get("HZ1"));
+        assertSame(newSession, registry.getByOriginalSessionId("original-2"));
+        assertEquals(1, registry.size());
+    }
+}
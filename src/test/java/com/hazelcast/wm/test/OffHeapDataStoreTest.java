@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.web.LocalCacheEntry;
+import com.hazelcast.web.OffHeapDataStore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapDataStoreTest {
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+    private final OffHeapDataStore store = new OffHeapDataStore(OffHeapDataStore.SLAB_SIZE);
+
+    @Test
+    public void testStoredValue_isDeserializedFromOffHeap() {
+        Data data = ss.toData("value");
+        Object offHeapData = store.store(data);
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(offHeapData);
+
+        assertNotSame(data, offHeapData);
+        assertEquals(OffHeapDataStore.SLAB_SIZE, store.getAllocatedBytes());
+        assertEquals(data, entry.getSerializedValue());
+        assertEquals(data, entry.getClusterValue());
+        assertTrue(entry.hasValue());
+        assertEquals("value", entry.getValue(ss::toObject));
+    }
+
+    @Test
+    public void testLargeValue_isKeptOnHeap() {
+        Data data = new HeapData(new byte[OffHeapDataStore.SLAB_SIZE + 1]);
+
+        assertSame(data, store.store(data));
+        assertEquals(0, store.getAllocatedBytes());
+    }
+
+    @Test
+    public void testSlab_isReclaimed_fromSizeWithMostSlabs() {
+        OffHeapDataStore store = new OffHeapDataStore(2 * OffHeapDataStore.SLAB_SIZE);
+        // the small values fill one slab, then the last one takes the second slab
+        for (int i = 0; i < OffHeapDataStore.SLAB_SIZE / 64; i++) {
+            store.store(ss.toData("value"));
+        }
+        LocalCacheEntry evicted = new LocalCacheEntry(false);
+        evicted.setSerializedValue(store.store(ss.toData("value")));
+        Data largeData = new HeapData(new byte[1000]);
+
+        Object offHeapData = store.store(largeData);
+
+        assertNotSame(largeData, offHeapData);
+        assertEquals(1, store.getEvictionCount());
+        assertEquals(0, store.getHeapFallbackCount());
+        assertEquals(2 * OffHeapDataStore.SLAB_SIZE, store.getAllocatedBytes());
+        assertFalse(evicted.deserialize(ss::toObject));
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(offHeapData);
+        assertEquals(largeData, entry.getSerializedValue());
+    }
+
+    @Test
+    public void testValue_isKeptOnHeap_whenNoSlabCanBeReclaimed() {
+        store.store(ss.toData("value"));
+        Data largeData = new HeapData(new byte[1000]);
+
+        assertSame(largeData, store.store(largeData));
+        assertEquals(1, store.getHeapFallbackCount());
+        assertEquals(0, store.getEvictionCount());
+    }
+
+    @Test
+    public void testEvictedValue_mustBeReloaded() {
+        LocalCacheEntry evicted = new LocalCacheEntry(false);
+        evicted.setSerializedValue(store.store(ss.toData("value")));
+        // fill the only slab with values of the same size, then store one more
+        for (int i = 0; i < OffHeapDataStore.SLAB_SIZE / 64; i++) {
+            store.store(ss.toData("value"));
+        }
+
+        assertEquals(1, store.getEvictionCount());
+        assertNull(evicted.getSerializedValue());
+        assertFalse(evicted.deserialize(ss::toObject));
+    }
+
+    @Test
+    public void testRecentlyReadValue_isEvictedLast() {
+        LocalCacheEntry read = new LocalCacheEntry(false);
+        read.setSerializedValue(store.store(ss.toData("read")));
+        LocalCacheEntry unread = new LocalCacheEntry(false);
+        unread.setSerializedValue(store.store(ss.toData("unread")));
+        assertEquals(ss.toData("read"), read.getSerializedValue());
+
+        for (int i = 0; i < OffHeapDataStore.SLAB_SIZE / 64 - 1; i++) {
+            store.store(ss.toData("value"));
+        }
+
+        assertEquals(1, store.getEvictionCount());
+        assertTrue(read.deserialize(ss::toObject));
+        assertFalse(unread.deserialize(ss::toObject));
+        assertEquals("read", read.getValue(ss::toObject));
+    }
+
+    @Test
+    public void testReplacedValue_isReleased() {
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        int count = 2 * OffHeapDataStore.SLAB_SIZE / 64;
+        for (int i = 0; i < count; i++) {
+            entry.setSerializedValue(store.store(ss.toData("value-" + i)));
+        }
+
+        assertEquals(0, store.getEvictionCount());
+        assertEquals("value-" + (count - 1), entry.getValue(ss::toObject));
+    }
+
+    @Test
+    public void testValueReplacedLocally_keepsClusterValue() {
+        Data data = ss.toData("value");
+        LocalCacheEntry entry = new LocalCacheEntry(false);
+        entry.setSerializedValue(store.store(data));
+        entry.setValue("value-updated");
+
+        assertNull(entry.getSerializedValue());
+        assertEquals(data, entry.getClusterValue());
+
+        entry.releaseOffHeap();
+        assertNull(entry.getClusterValue());
+    }
+}
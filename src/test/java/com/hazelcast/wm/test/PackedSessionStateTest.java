@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.web.PackedSessionState;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.entryprocessor.GetAttributeEntryProcessor;
+import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PackedSessionStateTest {
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testSerialization_keepsAttributesAndVersions() {
+        SessionState sessionState = new PackedSessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        sessionState.update(attributes("key2", "value2-updated"));
+
+        SessionState copy = ss.toObject(ss.toData(sessionState));
+
+        assertTrue(copy instanceof PackedSessionState);
+        assertEquals(sessionState.getVersion(), copy.getVersion());
+        assertEquals(sessionState.getAttributes(), copy.getAttributes());
+        assertEquals(attributes("key2", "value2-updated"), copy.changesSince(1).getAttributes());
+    }
+
+    @Test
+    public void testGetAttribute_readsPackedState() {
+        SessionState packed = packedCopy(attributes("key1", "value1", "key2", "value2"));
+
+        assertEquals(ss.toData("value2"), packed.getAttribute("key2"));
+        assertNull(packed.getAttribute("missing"));
+        assertEquals(1, packed.getVersion());
+    }
+
+    @Test
+    public void testUpdate_replacesAndRemovesPackedAttributes() {
+        SessionState packed = packedCopy(attributes("key1", "value1", "key2", "value2", "key3", "value3"));
+        Map<String, Data> updates = attributes("key1", "value1", "key2", "value2-updated", "key4", "value4");
+        updates.put("key3", null);
+
+        Map<String, Data> changes = packed.update(updates);
+
+        Map<String, Data> expectedChanges = attributes("key2", "value2-updated", "key4", "value4");
+        expectedChanges.put("key3", null);
+        assertEquals(expectedChanges, changes);
+        assertEquals(2, packed.getVersion());
+        assertEquals(2, packed.getLastRemovalVersion());
+        assertEquals(ss.toData("value2-updated"), packed.getAttribute("key2"));
+        assertNull(packed.getAttribute("key3"));
+        assertTrue(packed.changesSince(1).isCompleteSince(1));
+        assertEquals(attributes("key1", "value1", "key2", "value2-updated", "key4", "value4"),
+                ((SessionState) ss.toObject(ss.toData(packed))).getAttributes());
+    }
+
+    @Test
+    public void testUpdate_withEqualValues_keepsVersion() {
+        SessionState packed = packedCopy(attributes("key1", "value1"));
+
+        assertTrue(packed.update(attributes("key1", "value1")).isEmpty());
+        assertTrue(packed.update(singletonMap("missing", null)).isEmpty());
+        assertEquals(1, packed.getVersion());
+        assertTrue(packed.changesSince(1).getAttributes().isEmpty());
+    }
+
+    @Test
+    public void testSelect_returnsPackedAttributes_withVersion() {
+        SessionState packed = packedCopy(attributes("key1", "value1", "key2", "value2"));
+        packed.update(attributes("key2", "value2-updated"));
+
+        SessionState selection = packed.select(new HashSet<>(Arrays.asList("key2", "missing")));
+
+        assertEquals(2, selection.getVersion());
+        assertEquals(attributes("key2", "value2-updated"), selection.getAttributes());
+        assertEquals(attributes("key2", "value2-updated"), packed.changesSince(1).getAttributes());
+    }
+
+    @Test
+    public void testSessionUpdateEntryProcessor_selectsFormatOfNewSessions() {
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor("key1", ss.toData("value1"));
+        processor.setPackedState(true);
+        processor = ss.toObject(ss.toData(processor));
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", null);
+        processor.process(entry);
+
+        assertTrue(entry.getValue() instanceof PackedSessionState);
+        assertEquals(ss.toData("value1"), new GetAttributeEntryProcessor("key1").process(entry));
+
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1"));
+        entry.setValue(sessionState);
+        processor.process(entry);
+
+        assertFalse(entry.getValue() instanceof PackedSessionState);
+    }
+
+    private SessionState packedCopy(Map<String, Data> attributes) {
+        SessionState sessionState = new PackedSessionState();
+        sessionState.update(attributes);
+        return ss.toObject(ss.toData(sessionState));
+    }
+
+    private Map<String, Data> attributes(Object... namesAndValues) {
+        Map<String, Data> attributes = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put((String) namesAndValues[i], ss.toData(namesAndValues[i + 1]));
+        }
+        return attributes;
+    }
+}
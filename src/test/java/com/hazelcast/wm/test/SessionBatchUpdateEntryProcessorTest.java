@@ -0,0 +1,163 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.IMap;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.entryprocessor.SessionBatchUpdateEntryProcessor;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SessionBatchUpdateEntryProcessorTest {
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testProcess_appliesUpdatesOfEachSession() {
+        Map<String, Map<String, Data>> sessions = new HashMap<>();
+        sessions.put("session-1", singletonMap("key", ss.toData("value-1")));
+        sessions.put("session-2", singletonMap("key", ss.toData("value-2")));
+        SessionBatchUpdateEntryProcessor processor = new SessionBatchUpdateEntryProcessor(sessions);
+
+        Map.Entry<String, SessionState> entry1 = new AbstractMap.SimpleEntry<>("session-1", null);
+        Map.Entry<String, SessionState> entry2 = new AbstractMap.SimpleEntry<>("session-2", sessionState("key", "old"));
+        Map.Entry<String, SessionState> entry3 = new AbstractMap.SimpleEntry<>("session-3", null);
+        processor.process(entry1);
+        processor.process(entry2);
+        processor.process(entry3);
+
+        assertEquals("value-1", ss.toObject(entry1.getValue().getAttributes().get("key")));
+        assertEquals("value-2", ss.toObject(entry2.getValue().getAttributes().get("key")));
+        assertNull(entry3.getValue());
+    }
+
+    @Test
+    public void testBackupProcessor_onlyCarriesChangedSessions() {
+        Map<String, Map<String, Data>> sessions = new HashMap<>();
+        sessions.put("created", emptyMap());
+        sessions.put("changed", singletonMap("key", ss.toData("new")));
+        sessions.put("unchanged", singletonMap("key", ss.toData("old")));
+        SessionBatchUpdateEntryProcessor processor = new SessionBatchUpdateEntryProcessor(sessions);
+
+        processor.process(new AbstractMap.SimpleEntry<>("created", null));
+        processor.process(new AbstractMap.SimpleEntry<>("changed", sessionState("key", "old")));
+        processor.process(new AbstractMap.SimpleEntry<>("unchanged", sessionState("key", "old")));
+
+        SessionBatchUpdateEntryProcessor backupProcessor = (SessionBatchUpdateEntryProcessor) processor.getBackupProcessor();
+        assertEquals(2, backupProcessor.getSessions().size());
+        assertTrue(backupProcessor.getSessions().get("created").isEmpty());
+        assertEquals("new", ss.toObject(backupProcessor.getSessions().get("changed").get("key")));
+    }
+
+    @Test
+    public void testBackupProcessor_isNull_whenNothingChanged() {
+        SessionBatchUpdateEntryProcessor processor = new SessionBatchUpdateEntryProcessor(
+                singletonMap("session", singletonMap("key", ss.toData("old"))));
+
+        processor.process(new AbstractMap.SimpleEntry<>("session", sessionState("key", "old")));
+
+        assertNull(processor.getBackupProcessor());
+    }
+
+    @Test
+    public void testBackupProcessor_carriesSessionsOfAllPartitionOperations() throws Exception {
+        Map<String, Map<String, Data>> sessions = new HashMap<>();
+        sessions.put("partition-1", singletonMap("key", ss.toData("value-1")));
+        sessions.put("partition-2", singletonMap("key", ss.toData("value-2")));
+        SessionBatchUpdateEntryProcessor processor = new SessionBatchUpdateEntryProcessor(sessions);
+
+        // the operations of two partitions share the processor, each on its own partition thread
+        processor.process(new AbstractMap.SimpleEntry<>("partition-1", null));
+        Thread otherPartitionThread = new Thread(() -> processor.process(new AbstractMap.SimpleEntry<>("partition-2", null)));
+        otherPartitionThread.start();
+        otherPartitionThread.join();
+
+        // the backup of a partition applies the changes of the keys of its partition,
+        // whichever thread asks for it
+        AtomicReference<Object> otherBackupProcessor = new AtomicReference<>();
+        Thread backupThread = new Thread(() -> otherBackupProcessor.set(processor.getBackupProcessor()));
+        backupThread.start();
+        backupThread.join();
+        SessionBatchUpdateEntryProcessor backupProcessor = (SessionBatchUpdateEntryProcessor) processor.getBackupProcessor();
+        assertEquals(sessions.keySet(), backupProcessor.getSessions().keySet());
+        assertEquals(sessions.keySet(),
+                ((SessionBatchUpdateEntryProcessor) otherBackupProcessor.get()).getSessions().keySet());
+    }
+
+    @Test
+    public void testBatchUpdate_isAppliedOnBackupReplicas() {
+        TestHazelcastInstanceFactory factory = new TestHazelcastInstanceFactory(2);
+        try {
+            HazelcastInstance instance = factory.newHazelcastInstance();
+            HazelcastInstance otherInstance = factory.newHazelcastInstance();
+            IMap<String, SessionState> map = instance.getMap("sessions");
+            Map<String, Map<String, Data>> sessions = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                sessions.put("session-" + i, singletonMap("key", ss.toData("value-" + i)));
+            }
+            map.submitToKeys(sessions.keySet(), new SessionBatchUpdateEntryProcessor(sessions)).toCompletableFuture().join();
+            Map<String, Map<String, Data>> updates = new HashMap<>();
+            for (int i = 0; i < 100; i += 2) {
+                updates.put("session-" + i, singletonMap("key", ss.toData("updated-" + i)));
+            }
+            map.submitToKeys(updates.keySet(), new SessionBatchUpdateEntryProcessor(updates)).toCompletableFuture().join();
+
+            // the sessions owned by the other member are only left on the backup replicas
+            otherInstance.getLifecycleService().terminate();
+
+            assertEquals(100, map.size());
+            for (int i = 0; i < 100; i++) {
+                Object expected = (i % 2 == 0 ? "updated-" : "value-") + i;
+                assertEquals(expected, ss.toObject(map.get("session-" + i).getAttributes().get("key")));
+            }
+        } finally {
+            factory.terminateAll();
+        }
+    }
+
+    @Test
+    public void testSerialization() {
+        Map<String, Data> attributes = new HashMap<>();
+        attributes.put("key", ss.toData("value"));
+        attributes.put("removed", null);
+        SessionBatchUpdateEntryProcessor processor = new SessionBatchUpdateEntryProcessor(singletonMap("session", attributes));
+
+        SessionBatchUpdateEntryProcessor copy = ss.toObject(ss.toData(processor));
+
+        assertEquals(attributes, copy.getSessions().get("session"));
+    }
+
+    private SessionState sessionState(String name, Object value) {
+        SessionState sessionState = new SessionState();
+        sessionState.setAttribute(name, ss.toData(value));
+        return sessionState;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.web.SessionIdGenerator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SessionIdGeneratorTest {
+
+    @Test
+    public void testSessionId_isPrefixedUpperCaseHex() {
+        String id = SessionIdGenerator.newSessionId();
+
+        assertEquals(34, id.length());
+        assertTrue(id, id.matches("HZ[0-9A-F]{32}"));
+    }
+
+    @Test
+    public void testSessionIds_areUniqueAcrossThreads() throws InterruptedException {
+        int threadCount = 8;
+        int idsPerThread = 10000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids.add(SessionIdGenerator.newSessionId());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadCount * idsPerThread, ids.size());
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.nio.IOUtil;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+import com.hazelcast.web.entryprocessor.GetAttributesEntryProcessor;
+import com.hazelcast.web.entryprocessor.GetSessionChangesEntryProcessor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SessionStateTest {
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testUpdate_incrementsVersion_onlyWhenChanged() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        assertEquals(1, sessionState.getVersion());
+
+        sessionState.update(attributes("key1", "value1"));
+        assertEquals(1, sessionState.getVersion());
+
+        sessionState.update(attributes("key1", "value1-updated"));
+        assertEquals(2, sessionState.getVersion());
+    }
+
+    @Test
+    public void testChangesSince_currentVersion_hasNoAttributes() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+
+        SessionState changes = sessionState.changesSince(sessionState.getVersion());
+
+        assertEquals(sessionState.getVersion(), changes.getVersion());
+        assertTrue(changes.getAttributes().isEmpty());
+    }
+
+    @Test
+    public void testChangesSince_olderVersion_hasChangedAttributes() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        long version = sessionState.getVersion();
+        sessionState.update(attributes("key2", "value2-updated", "key3", "value3"));
+
+        SessionState changes = sessionState.changesSince(version);
+
+        assertFalse(changes.isCompleteSince(version));
+        assertEquals(attributes("key2", "value2-updated", "key3", "value3"), changes.getAttributes());
+    }
+
+    @Test
+    public void testChangesSince_afterRemoval_hasAllAttributes() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        long version = sessionState.getVersion();
+        sessionState.update(singletonMap("key1", null));
+
+        SessionState changes = sessionState.changesSince(version);
+
+        assertTrue(changes.isCompleteSince(version));
+        assertEquals(attributes("key2", "value2"), changes.getAttributes());
+    }
+
+    @Test
+    public void testChangesSince_unknownVersion_hasAllAttributes() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1"));
+
+        SessionState changes = sessionState.changesSince(-1);
+
+        assertTrue(changes.isCompleteSince(-1));
+        assertEquals(attributes("key1", "value1"), changes.getAttributes());
+    }
+
+    @Test
+    public void testSerialization_keepsVersions() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        sessionState.update(attributes("key2", "value2-updated"));
+
+        SessionState copy = ss.toObject(ss.toData(sessionState));
+
+        assertEquals(sessionState.getVersion(), copy.getVersion());
+        assertEquals(sessionState.getAttributes(), copy.getAttributes());
+        assertEquals(attributes("key2", "value2-updated"), copy.changesSince(1).getAttributes());
+    }
+
+    @Test
+    public void testSelect_returnsExistingAttributes_withVersion() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        sessionState.update(attributes("key2", "value2-updated"));
+
+        SessionState selection = sessionState.select(new HashSet<>(Arrays.asList("key2", "missing")));
+
+        assertEquals(sessionState.getVersion(), selection.getVersion());
+        assertEquals(attributes("key2", "value2-updated"), selection.getAttributes());
+        assertTrue(sessionState.changesSince(selection.getVersion()).getAttributes().isEmpty());
+    }
+
+    @Test
+    public void testGetAttributesEntryProcessor_roundTrip() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1", "key2", "value2"));
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+        GetAttributesEntryProcessor processor = ss.toObject(ss.toData(new GetAttributesEntryProcessor(singleton("key1"))));
+
+        SessionState selection = (SessionState) processor.process(entry);
+
+        assertEquals(attributes("key1", "value1"), selection.getAttributes());
+        assertNull(processor.process(new AbstractMap.SimpleEntry<>("session", null)));
+    }
+
+    @Test
+    public void testGetSessionChangesEntryProcessor() {
+        SessionState sessionState = new SessionState();
+        sessionState.update(attributes("key1", "value1"));
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+
+        SessionState changes = (SessionState) new GetSessionChangesEntryProcessor(1).process(entry);
+
+        assertTrue(changes.getAttributes().isEmpty());
+        assertNull(new GetSessionChangesEntryProcessor(1).process(new AbstractMap.SimpleEntry<>("session", null)));
+    }
+
+    @Test
+    public void testReadLegacyForm() {
+        SessionState sessionState = ss.toObject(ss.toData(new LegacyFormSessionState(attributes("key1", "value1"))));
+        assertEquals("value1", ss.toObject(sessionState.getAttribute("key1")));
+        assertEquals(0, sessionState.getVersion());
+        assertEquals(WebDataSerializerHook.SESSION_STATE_V2, sessionState.getClassId());
+
+        sessionState.update(attributes("key2", "value2"));
+        SessionState changes = sessionState.changesSince(0);
+        assertEquals(singleton("key2"), changes.getAttributes().keySet());
+
+        SessionState copy = ss.toObject(ss.toData(sessionState));
+        assertEquals(1, copy.getVersion());
+        assertEquals(sessionState.getAttributes(), copy.getAttributes());
+    }
+
+    private Map<String, Data> attributes(Object... namesAndValues) {
+        Map<String, Data> attributes = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put((String) namesAndValues[i], ss.toData(namesAndValues[i + 1]));
+        }
+        return attributes;
+    }
+
+    /**
+     * Writes a state in the form used before the states were versioned.
+     */
+    private static final class LegacyFormSessionState implements IdentifiedDataSerializable {
+
+        private final Map<String, Data> attributes;
+
+        LegacyFormSessionState(Map<String, Data> attributes) {
+            this.attributes = attributes;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return WebDataSerializerHook.F_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return WebDataSerializerHook.SESSION_STATE;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, Data> entry : attributes.entrySet()) {
+                out.writeString(entry.getKey());
+                IOUtil.writeData(out, entry.getValue());
+            }
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
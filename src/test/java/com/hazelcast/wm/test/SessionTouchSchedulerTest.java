@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.web.ClusteredSessionService;
+import com.hazelcast.web.SessionTouchScheduler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionTouchSchedulerTest {
+
+    private final ClusteredSessionService clusteredSessionService = mock(ClusteredSessionService.class);
+    private final Member owner1 = mock(Member.class);
+    private final Member owner2 = mock(Member.class);
+    private SessionTouchScheduler scheduler;
+
+    @Before
+    public void setup() {
+        when(clusteredSessionService.getPartitionOwner(anyString()))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0).startsWith("owner1") ? owner1 : owner2);
+        when(clusteredSessionService.touchSessionsAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.emptyMap()));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testTouch_groupsSessionsByOwner() {
+        // touched every second
+        scheduler = new SessionTouchScheduler(clusteredSessionService, 4000);
+
+        scheduler.touch("owner1-session1");
+        scheduler.touch("owner1-session2");
+        scheduler.touch("owner2-session1");
+        scheduler.touch("owner1-session1");
+
+        verify(clusteredSessionService, timeout(5000))
+                .touchSessionsAsync(new HashSet<>(Arrays.asList("owner1-session1", "owner1-session2")));
+        verify(clusteredSessionService, timeout(5000))
+                .touchSessionsAsync(Collections.singleton("owner2-session1"));
+        verify(clusteredSessionService, after(1500).times(2)).touchSessionsAsync(any());
+    }
+
+    @Test
+    public void testTouch_readsMaxIdleTimeFromSession_whenNotConfigured() {
+        when(clusteredSessionService.getSessionMaxIdleMillis("owner1-session1")).thenReturn(Long.MAX_VALUE);
+        scheduler = new SessionTouchScheduler(clusteredSessionService, -1);
+
+        scheduler.touch("owner1-session1");
+        verify(clusteredSessionService, timeout(5000)).touchSessionsAsync(Collections.singleton("owner1-session1"));
+
+        // the sessions never become idle, so they are not touched anymore
+        scheduler.touch("owner1-session2");
+        verify(clusteredSessionService, after(1500).times(1)).touchSessionsAsync(any());
+    }
+
+    @Test
+    public void testTouch_doesNotTouch_whenSessionsNeverIdle() {
+        scheduler = new SessionTouchScheduler(clusteredSessionService, 0);
+
+        scheduler.touch("owner1-session1");
+
+        verify(clusteredSessionService, after(1500).never()).touchSessionsAsync(any());
+        verify(clusteredSessionService, never()).getPartitionOwner(anyString());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test;
+
+import com.hazelcast.internal.nio.IOUtil;
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+import com.hazelcast.web.entryprocessor.GetAttributeEntryProcessor;
+import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SessionUpdateEntryProcessorTest {
+
+    private static final int ATTRIBUTE_COUNT = 20;
+    private static final int ATTRIBUTE_SIZE = 3 * 1024;
+
+    private final SerializationService ss = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testBackupProcessor_onlyCarriesChangedAttributes() {
+        SessionState sessionState = largeSessionState();
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor(ATTRIBUTE_COUNT);
+        processor.getAttributes().put("attribute-0", ss.toData(new byte[ATTRIBUTE_SIZE]));
+        processor.getAttributes().put("counter", ss.toData(2));
+        processor.process(entry);
+
+        SessionUpdateEntryProcessor backupProcessor = (SessionUpdateEntryProcessor) processor.getBackupProcessor();
+        assertEquals(1, backupProcessor.getAttributes().size());
+        assertEquals(2, (int) ss.toObject(backupProcessor.getAttributes().get("counter")));
+        assertEquals(2, (int) ss.toObject(sessionState.getAttributes().get("counter")));
+    }
+
+    @Test
+    public void testBackupBytesPerUpdate() {
+        SessionState sessionState = largeSessionState();
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor("counter", ss.toData(2));
+        processor.process(entry);
+
+        // a whole state rewrite would replicate every attribute, the delta only the counter
+        int wholeStateBytes = ss.toData(sessionState).totalSize();
+        int deltaBytes = ss.toData(processor.getBackupProcessor()).totalSize();
+        assertTrue("whole state: " + wholeStateBytes + " bytes, delta: " + deltaBytes + " bytes",
+                deltaBytes * 100 < wholeStateBytes);
+    }
+
+    @Test
+    public void testBackupProcessor_isNull_whenNothingChanged() {
+        SessionState sessionState = largeSessionState();
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor(2);
+        processor.getAttributes().put("counter", ss.toData(1));
+        processor.getAttributes().put("missing", null);
+        processor.process(entry);
+
+        assertNull(processor.getBackupProcessor());
+    }
+
+    @Test
+    public void testBackupProcessor_carriesAllAttributes_whenSessionIsCreated() {
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", null);
+
+        SessionUpdateEntryProcessor processor = new SessionUpdateEntryProcessor("counter", ss.toData(1));
+        processor.process(entry);
+
+        EntryProcessor<String, SessionState, Object> backupProcessor = processor.getBackupProcessor();
+        assertSame(processor, backupProcessor);
+        assertEquals(1, entry.getValue().getAttributes().size());
+    }
+
+    @Test
+    public void testReadLegacyForm() {
+        Data value = ss.toData("value");
+        SessionUpdateEntryProcessor processor = ss.toObject(legacyFormData(out -> {
+            out.writeInt(1);
+            out.writeString("key");
+            IOUtil.writeData(out, value);
+        }, WebDataSerializerHook.SESSION_UPDATE));
+        assertEquals(value, processor.getAttributes().get("key"));
+        assertFalse(processor.isPackedState());
+        assertEquals(WebDataSerializerHook.SESSION_UPDATE_V2, processor.getClassId());
+
+        SessionUpdateEntryProcessor copy = ss.toObject(ss.toData(processor));
+        assertEquals(processor.getAttributes(), copy.getAttributes());
+    }
+
+    @Test
+    public void testReadLegacyForm_getAttribute() {
+        SessionState sessionState = new SessionState();
+        sessionState.setAttribute("key", ss.toData("value"));
+        Map.Entry<String, SessionState> entry = new AbstractMap.SimpleEntry<>("session", sessionState);
+
+        GetAttributeEntryProcessor processor = ss.toObject(legacyFormData(out -> out.writeString("key"),
+                WebDataSerializerHook.GET_ATTRIBUTE));
+        assertEquals("value", ss.toObject(processor.process(entry)));
+        assertEquals(WebDataSerializerHook.GET_ATTRIBUTE_V2, processor.getClassId());
+    }
+
+    private Data legacyFormData(LegacyFormWriter writer, int classId) {
+        return ss.toData(new IdentifiedDataSerializable() {
+            @Override
+            public int getFactoryId() {
+                return WebDataSerializerHook.F_ID;
+            }
+
+            @Override
+            public int getClassId() {
+                return classId;
+            }
+
+            @Override
+            public void writeData(ObjectDataOutput out) throws IOException {
+                writer.write(out);
+            }
+
+            @Override
+            public void readData(ObjectDataInput in) {
+                throw new UnsupportedOperationException();
+            }
+        });
+    }
+
+    private interface LegacyFormWriter {
+        void write(ObjectDataOutput out) throws IOException;
+    }
+
+    private SessionState largeSessionState() {
+        SessionState sessionState = new SessionState();
+        for (int i = 0; i < ATTRIBUTE_COUNT; i++) {
+            sessionState.setAttribute("attribute-" + i, ss.toData(new byte[ATTRIBUTE_SIZE]));
+        }
+        Data counter = ss.toData(1);
+        sessionState.setAttribute("counter", counter);
+        return sessionState;
+    }
+}
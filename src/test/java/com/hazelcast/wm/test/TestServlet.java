@@ -15,6 +15,8 @@
 
 package com.hazelcast.wm.test;
 
+import com.hazelcast.web.OffHeapDataStore;
+import com.hazelcast.web.WebFilter;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -25,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -49,12 +52,24 @@ public class TestServlet extends HttpServlet {
             HttpSession session = req.getSession(false);
             resp.getWriter().write(String.valueOf(session == null));
             return;
+        } else if (req.getRequestURI().endsWith("offHeapEvictions")) {
+            WebFilter webFilter = (WebFilter) getServletContext().getAttribute(WebFilter.WEB_FILTER_ATTRIBUTE_KEY);
+            OffHeapDataStore offHeapDataStore = webFilter.getClusteredSessionService().getOffHeapDataStore();
+            resp.getWriter().write(String.valueOf(offHeapDataStore.getEvictionCount()));
+            return;
+        } else if (req.getRequestURI().endsWith("localSessions")) {
+            WebFilter webFilter = (WebFilter) getServletContext().getAttribute(WebFilter.WEB_FILTER_ATTRIBUTE_KEY);
+            resp.getWriter().write(String.valueOf(webFilter.getLocalSessionRegistry().size()));
+            return;
         }
 
         HttpSession session = req.getSession();
         if (req.getRequestURI().endsWith("write")) {
             session.setAttribute("key", "value");
             resp.getWriter().write("true");
+        } else if (req.getRequestURI().endsWith("writeLarge")) {
+            session.setAttribute("key", "value".repeat(60000));
+            resp.getWriter().write("true");
         } else if (req.getRequestURI().endsWith("write_wait")) {
             session.setAttribute("key", "value");
             try {
@@ -103,6 +118,16 @@ public class TestServlet extends HttpServlet {
             session.setAttribute("key", "value-updated");
             Object value = session.getAttribute("key");
             resp.getWriter().write(value == null ? "null" : value.toString());
+        } else if (req.getRequestURI().endsWith("appendToList")) {
+            // changes the attribute object without setting it again after it was created
+            @SuppressWarnings("unchecked")
+            List<String> list = (List<String>) session.getAttribute("list");
+            if (list == null) {
+                list = new ArrayList<>();
+                session.setAttribute("list", list);
+            }
+            list.add("element");
+            resp.getWriter().write(String.valueOf(list.size()));
         } else if (req.getRequestURI().endsWith("names")) {
             List<String> names = Collections.list(session.getAttributeNames());
             String nameList = names.toString();
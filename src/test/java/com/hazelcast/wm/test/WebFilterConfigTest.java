@@ -1,5 +1,6 @@
 package com.hazelcast.wm.test;
 
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.web.WebFilterConfig;
 import com.hazelcast.wm.test.spring.MapBasedFilterConfig;
@@ -64,6 +65,18 @@ public class WebFilterConfigTest {
         WebFilterConfig.create(emptyFilterConfig, properties);
     }
 
+    @Test
+    public void testUseClient_withLocalPartitionSessionIds() {
+        expectedException.expect(InvalidConfigurationException.class);
+        expectedException.expectMessage(containsString(WebFilterConfig.LOCAL_PARTITION_SESSION_IDS));
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.USE_CLIENT, "true");
+        properties.setProperty(WebFilterConfig.LOCAL_PARTITION_SESSION_IDS, "true");
+
+        WebFilterConfig.create(emptyFilterConfig, properties);
+    }
+
     @Test
     public void bothServletFilterConfigAndPropertiesAreUsed() {
         Properties properties = new Properties();
@@ -98,4 +111,67 @@ public class WebFilterConfigTest {
         Assert.assertEquals(true, config.isCookieHttpOnly());
         Assert.assertEquals(160, config.getCookieMaxAge());
     }
+
+    @Test
+    public void testDeferredWriteAsync_defaults() {
+        WebFilterConfig config = WebFilterConfig.create(emptyFilterConfig, new Properties());
+        Assert.assertFalse(config.isDeferredWriteAsync());
+        Assert.assertEquals(2, config.getDeferredWriteAsyncThreads());
+        Assert.assertEquals(10000, config.getDeferredWriteAsyncQueueCapacity());
+    }
+
+    @Test
+    public void testDetachedSessionMaxIdleSeconds_defaultsToNotKeepingDetachedSessions() {
+        WebFilterConfig config = WebFilterConfig.create(emptyFilterConfig, new Properties());
+        Assert.assertEquals(0, config.getDetachedSessionMaxIdleSeconds());
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.DETACHED_SESSION_MAX_IDLE_SECONDS, "60");
+        Assert.assertEquals(60, WebFilterConfig.create(emptyFilterConfig, properties).getDetachedSessionMaxIdleSeconds());
+    }
+
+    @Test
+    public void testDetachedSessionMaxIdleSeconds_withNegativeValue() {
+        expectedException.expect(InvalidConfigurationException.class);
+        expectedException.expectMessage(containsString(WebFilterConfig.DETACHED_SESSION_MAX_IDLE_SECONDS));
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.DETACHED_SESSION_MAX_IDLE_SECONDS, "-1");
+
+        WebFilterConfig.create(emptyFilterConfig, properties);
+    }
+
+    @Test
+    public void testDeferredWriteAsync_withNonPositiveThreads() {
+        expectedException.expect(InvalidConfigurationException.class);
+        expectedException.expectMessage(containsString(WebFilterConfig.DEFERRED_WRITE_ASYNC_THREADS));
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.DEFERRED_WRITE_ASYNC, "true");
+        properties.setProperty(WebFilterConfig.DEFERRED_WRITE_ASYNC_THREADS, "0");
+
+        WebFilterConfig.create(emptyFilterConfig, properties);
+    }
+
+    @Test
+    public void testInMemoryFormat() {
+        Assert.assertNull(WebFilterConfig.create(emptyFilterConfig, new Properties()).getInMemoryFormat());
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.IN_MEMORY_FORMAT, "object");
+
+        WebFilterConfig config = WebFilterConfig.create(emptyFilterConfig, properties);
+        Assert.assertEquals(InMemoryFormat.OBJECT, config.getInMemoryFormat());
+    }
+
+    @Test
+    public void testInMemoryFormat_native() {
+        expectedException.expect(InvalidConfigurationException.class);
+        expectedException.expectMessage(containsString(WebFilterConfig.IN_MEMORY_FORMAT));
+
+        Properties properties = new Properties();
+        properties.setProperty(WebFilterConfig.IN_MEMORY_FORMAT, "NATIVE");
+
+        WebFilterConfig.create(emptyFilterConfig, properties);
+    }
 }
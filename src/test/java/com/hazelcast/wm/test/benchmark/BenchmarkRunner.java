@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the benchmarks of this module, which are plain classes with a main method
+ * in the test sources, since the build has no JMH dependency. Like JMH, each
+ * benchmark runs a few warmup iterations before the measured ones, and the
+ * results of the operations are consumed so the JIT cannot drop them. The
+ * benchmarks are not run by the tests; after {@code mvn test-compile} run them with
+ * the test classpath, for example:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *         com.hazelcast.wm.test.benchmark.SessionIdGeneratorBenchmark
+ * </pre>
+ * The number and the length of the iterations are set with the
+ * {@code benchmark.iterations} and {@code benchmark.iterationMillis} system properties.
+ */
+public final class BenchmarkRunner {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 5);
+    private static final long ITERATION_MILLIS = Long.getLong("benchmark.iterationMillis", 1000);
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    // consumes the results of the operations
+    private static volatile int sink;
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Measures the average time of an operation, run concurrently by the given
+     * number of threads, and prints it.
+     *
+     * @param name      the name printed with the result
+     * @param threads   the number of threads running the operation
+     * @param operation the operation
+     * @return the average time of the operation in nanoseconds
+     * @throws Exception if the operation failed
+     */
+    public static double run(String name, int threads, Callable<?> operation) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            runIteration(threads, operation);
+        }
+        double min = Double.MAX_VALUE;
+        double max = 0;
+        double total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            double nanosPerOperation = runIteration(threads, operation);
+            min = Math.min(min, nanosPerOperation);
+            max = Math.max(max, nanosPerOperation);
+            total += nanosPerOperation;
+        }
+        double average = total / ITERATIONS;
+        System.out.println(String.format(Locale.ROOT, "%-60s %3d threads %12.1f ns/op (min %.1f, max %.1f)",
+                name, threads, average, min, max));
+        return average;
+    }
+
+    /**
+     * Measures the heap retained by the objects a factory creates, from the used
+     * heap after garbage collection, and prints it per object.
+     *
+     * @param name    the name printed with the result
+     * @param count   the number of objects the factory creates
+     * @param factory creates the objects and returns a reference which keeps them reachable
+     * @return the retained heap per object in bytes
+     * @throws Exception if the factory failed
+     */
+    public static long retainedBytesPerObject(String name, int count, Callable<?> factory) throws Exception {
+        long before = usedHeapAfterGc();
+        Object retained = factory.call();
+        long after = usedHeapAfterGc();
+        sink ^= System.identityHashCode(retained);
+        long bytesPerObject = (after - before) / count;
+        System.out.println(String.format(Locale.ROOT, "%-60s %12d bytes/object", name, bytesPerObject));
+        return bytesPerObject;
+    }
+
+    private static double runIteration(int threads, Callable<?> operation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long[] operations = new long[threads];
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    long end = System.nanoTime() + ITERATION_MILLIS * NANOS_PER_MILLI;
+                    int consumed = 0;
+                    long count = 0;
+                    do {
+                        consumed ^= System.identityHashCode(operation.call());
+                        count++;
+                    } while (System.nanoTime() < end);
+                    operations[worker] = count;
+                    sink ^= consumed;
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+        start.countDown();
+        long total = 0;
+        for (int i = 0; i < threads; i++) {
+            workers.get(i).join();
+            total += operations[i];
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return (double) ITERATION_MILLIS * NANOS_PER_MILLI * threads / total;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // a few collections, since a single one may not finish the work of a concurrent collector
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.benchmark;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.map.IMap;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.entryprocessor.GetAttributeEntryProcessor;
+import com.hazelcast.web.entryprocessor.SessionUpdateEntryProcessor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the entry processors of the filter on a session map with the BINARY and
+ * the OBJECT in-memory formats, see {@code in-memory-format}, for sessions of 20
+ * attributes. See {@link BenchmarkRunner} for running it.
+ */
+public final class InMemoryFormatBenchmark {
+
+    private static final int SESSIONS = 1000;
+    private static final int ATTRIBUTES = 20;
+    private static final int VALUE_LENGTH = 100;
+    private static final int THREADS = 4;
+
+    private InMemoryFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = new Config().setClusterName("in-memory-format-benchmark");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.getNetworkConfig().getJoin().getAutoDetectionConfig().setEnabled(false);
+        config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+        for (InMemoryFormat format : new InMemoryFormat[]{InMemoryFormat.BINARY, InMemoryFormat.OBJECT}) {
+            config.addMapConfig(new MapConfig(format.name()).setInMemoryFormat(format));
+        }
+        HazelcastInstance hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        try {
+            SerializationService serializationService =
+                    ((SerializationServiceSupport) hazelcastInstance).getSerializationService();
+            for (InMemoryFormat format : new InMemoryFormat[]{InMemoryFormat.BINARY, InMemoryFormat.OBJECT}) {
+                IMap<String, SessionState> map = hazelcastInstance.getMap(format.name());
+                createSessions(map, serializationService);
+
+                BenchmarkRunner.run(format + " update one attribute", THREADS, () -> {
+                    String attributeName = "attribute-" + ThreadLocalRandom.current().nextInt(ATTRIBUTES);
+                    SessionUpdateEntryProcessor update = new SessionUpdateEntryProcessor(attributeName,
+                            serializationService.toData(value()));
+                    return map.executeOnKey(randomSessionId(), update);
+                });
+                BenchmarkRunner.run(format + " read one attribute", THREADS, () -> {
+                    String attributeName = "attribute-" + ThreadLocalRandom.current().nextInt(ATTRIBUTES);
+                    return map.executeOnKey(randomSessionId(), new GetAttributeEntryProcessor(attributeName));
+                });
+            }
+        } finally {
+            hazelcastInstance.shutdown();
+        }
+    }
+
+    private static void createSessions(IMap<String, SessionState> map, SerializationService serializationService) {
+        for (int i = 0; i < SESSIONS; i++) {
+            SessionUpdateEntryProcessor create = new SessionUpdateEntryProcessor(ATTRIBUTES);
+            for (int j = 0; j < ATTRIBUTES; j++) {
+                create.getAttributes().put("attribute-" + j, serializationService.toData(value()));
+            }
+            map.executeOnKey("session-" + i, create);
+        }
+    }
+
+    private static String randomSessionId() {
+        return "session-" + ThreadLocalRandom.current().nextInt(SESSIONS);
+    }
+
+    private static String value() {
+        char[] value = new char[VALUE_LENGTH];
+        for (int i = 0; i < VALUE_LENGTH; i++) {
+            value[i] = (char) ('a' + ThreadLocalRandom.current().nextInt(26));
+        }
+        return new String(value);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.benchmark;
+
+import com.hazelcast.web.HazelcastHttpSession;
+import com.hazelcast.web.LocalSessionRegistry;
+import org.objenesis.ObjenesisStd;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the {@link LocalSessionRegistry}, which finds a session by both of its
+ * ids in a single map, with the two maps the filter kept before, one from the
+ * original session ids to the Hazelcast session ids and one from the Hazelcast
+ * session ids to the sessions, at 1M sessions. The heap per session does not
+ * include the sessions, which hold the state the registry keeps for them. See
+ * {@link BenchmarkRunner} for running it, with a heap of at least 2 GB.
+ */
+public final class LocalSessionRegistryBenchmark {
+
+    private static final int SESSIONS = 1000000;
+    private static final int THREADS = 1;
+
+    private LocalSessionRegistryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] originalSessionIds = new String[SESSIONS];
+        HazelcastHttpSession[] sessions = new HazelcastHttpSession[SESSIONS];
+        ObjenesisStd objenesis = new ObjenesisStd();
+        Field id = HazelcastHttpSession.class.getDeclaredField("id");
+        id.setAccessible(true);
+        for (int i = 0; i < SESSIONS; i++) {
+            originalSessionIds[i] = "original-" + i;
+            // the sessions are only looked up, so they are not initialized
+            sessions[i] = objenesis.newInstance(HazelcastHttpSession.class);
+            id.set(sessions[i], "HZ" + i);
+        }
+
+        BenchmarkRunner.retainedBytesPerObject("two maps, heap per session", SESSIONS,
+                () -> twoMaps(originalSessionIds, sessions));
+        BenchmarkRunner.retainedBytesPerObject("registry, heap per session", SESSIONS,
+                () -> registry(originalSessionIds, sessions));
+
+        TwoMaps twoMaps = twoMaps(originalSessionIds, sessions);
+        BenchmarkRunner.run("two maps, get by original session id", THREADS,
+                () -> twoMaps.getByOriginalSessionId(originalSessionIds[randomIndex()]));
+        BenchmarkRunner.run("two maps, get by session id", THREADS,
+                () -> twoMaps.sessions.get(sessions[randomIndex()].getId()));
+
+        LocalSessionRegistry registry = registry(originalSessionIds, sessions);
+        BenchmarkRunner.run("registry, get by original session id", THREADS,
+                () -> registry.getByOriginalSessionId(originalSessionIds[randomIndex()]));
+        BenchmarkRunner.run("registry, get by session id", THREADS,
+                () -> registry.get(sessions[randomIndex()].getId()));
+    }
+
+    private static LocalSessionRegistry registry(String[] originalSessionIds, HazelcastHttpSession[] sessions) {
+        LocalSessionRegistry registry = new LocalSessionRegistry(SESSIONS, 0);
+        for (int i = 0; i < SESSIONS; i++) {
+            registry.put(originalSessionIds[i], sessions[i]);
+        }
+        return registry;
+    }
+
+    private static TwoMaps twoMaps(String[] originalSessionIds, HazelcastHttpSession[] sessions) {
+        TwoMaps twoMaps = new TwoMaps();
+        for (int i = 0; i < SESSIONS; i++) {
+            twoMaps.originalSessions.put(originalSessionIds[i], sessions[i].getId());
+            twoMaps.sessions.put(sessions[i].getId(), sessions[i]);
+        }
+        return twoMaps;
+    }
+
+    private static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(SESSIONS);
+    }
+
+    /**
+     * The maps the filter kept the local sessions in before the {@link LocalSessionRegistry}.
+     */
+    private static final class TwoMaps {
+
+        final ConcurrentHashMap<String, String> originalSessions = new ConcurrentHashMap<>(1000);
+        final ConcurrentHashMap<String, HazelcastHttpSession> sessions = new ConcurrentHashMap<>(1000);
+
+        HazelcastHttpSession getByOriginalSessionId(String originalSessionId) {
+            String sessionId = originalSessions.get(originalSessionId);
+            return sessionId == null ? null : sessions.get(sessionId);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.benchmark;
+
+import com.hazelcast.internal.util.UuidUtil;
+import com.hazelcast.web.SessionIdGenerator;
+
+/**
+ * Compares the {@link SessionIdGenerator} with the secure UUID string the filter
+ * built session ids from before, on one thread and on 8 threads, where the generators
+ * contend for their random number generators. See {@link BenchmarkRunner} for running it.
+ */
+public final class SessionIdGeneratorBenchmark {
+
+    private SessionIdGeneratorBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : new int[]{1, 8}) {
+            BenchmarkRunner.run("secure uuid string", threads, SessionIdGeneratorBenchmark::uuidSessionId);
+            BenchmarkRunner.run("session id generator", threads, SessionIdGenerator::newSessionId);
+        }
+    }
+
+    /**
+     * The session id generation of the filter before the {@link SessionIdGenerator}.
+     */
+    private static String uuidSessionId() {
+        String id = UuidUtil.newSecureUuidString();
+        StringBuilder sb = new StringBuilder("HZ");
+        char[] chars = id.toCharArray();
+        for (final char c : chars) {
+            if (c != '-') {
+                if (Character.isLetter(c)) {
+                    sb.append(Character.toUpperCase(c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
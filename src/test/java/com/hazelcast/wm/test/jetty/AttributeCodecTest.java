@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.web.WebDataSerializerHook;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class AttributeCodecTest extends AbstractWebFilterTest {
+
+    private static final String LARGE_VALUE = "value".repeat(400);
+
+    public AttributeCodecTest() {
+        super("node1-node-attribute-codec.xml", "node2-node-attribute-codec.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testLargeAttribute_isStoredEncoded() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("setAttribute?key=" + LARGE_VALUE, serverPort1, cookieStore));
+
+        Data stored = getStoredAttribute(map, getHazelcastSessionId(cookieStore));
+        assertTrue("stored: " + stored.totalSize() + " bytes", stored.totalSize() * 10 < LARGE_VALUE.length());
+        assertEquals(LARGE_VALUE, executeRequest("read", serverPort2, cookieStore));
+        assertEquals(LARGE_VALUE, executeRequest("read", serverPort1, cookieStore));
+    }
+
+    @Test(timeout = 60000)
+    public void testSmallAttribute_isStoredAsIs() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+
+        Data stored = getStoredAttribute(map, getHazelcastSessionId(cookieStore));
+        SerializationService ss = ((SerializationServiceSupport) hz).getSerializationService();
+        assertEquals("value", ss.toObject(stored));
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+    }
+
+    @Test(timeout = 60000)
+    public void testAttributeEncodedByUnknownCodec_doesNotCreateIt() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        String sessionId = getHazelcastSessionId(cookieStore);
+
+        SerializationService ss = ((SerializationServiceSupport) hz).getSerializationService();
+        SessionState sessionState = (SessionState) map.get(sessionId);
+        sessionState.setAttribute("key", ss.toData(new ForgedEncodedAttribute(NotACodec.class.getName())));
+        map.put(sessionId, sessionState);
+
+        assertNotEquals("value", executeRequest("read", serverPort2, cookieStore));
+        assertFalse(NotACodec.created);
+    }
+
+    private Data getStoredAttribute(IMap<String, Object> map, String sessionId) {
+        SessionState sessionState = (SessionState) map.get(sessionId);
+        return sessionState.getAttributes().get("key");
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+
+    /**
+     * Writes an attribute in the encoded form, naming a class which is not a configured codec.
+     */
+    private static final class ForgedEncodedAttribute implements IdentifiedDataSerializable {
+
+        private final String codecClassName;
+
+        ForgedEncodedAttribute(String codecClassName) {
+            this.codecClassName = codecClassName;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return WebDataSerializerHook.F_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return WebDataSerializerHook.ENCODED_ATTRIBUTE;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeString(codecClassName);
+            out.writeByteArray(new byte[0]);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static final class NotACodec {
+
+        static volatile boolean created;
+
+        public NotACodec() {
+            created = true;
+        }
+    }
+}
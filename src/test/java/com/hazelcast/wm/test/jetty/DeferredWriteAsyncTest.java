@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.map.IMap;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class DeferredWriteAsyncTest extends AbstractWebFilterTest {
+
+    public DeferredWriteAsyncTest() {
+        super("node1-node-deferred-async.xml", "node2-node-deferred-async.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testWriteIsAppliedToCluster() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        String sessionId = getHazelcastSessionId(cookieStore);
+
+        assertTrueEventually(() -> assertEquals("value", getAttribute(map, sessionId, "key")));
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+    }
+
+    @Test(timeout = 60000)
+    public void testWritesOfSessionAreAppliedInOrder() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+            assertEquals("true", executeRequest("remove", serverPort1, cookieStore));
+            assertEquals("true", executeRequest("update", serverPort1, cookieStore));
+        }
+        String sessionId = getHazelcastSessionId(cookieStore);
+
+        assertTrueEventually(() -> assertEquals("value-updated", getAttribute(map, sessionId, "key")));
+        assertTrueAllTheTime(() -> assertEquals("value-updated", getAttribute(map, sessionId, "key")), 2);
+    }
+
+    @Test(timeout = 60000)
+    public void testWritesOfSessionAreAppliedInOrder_whenQueueIsFull() throws Exception {
+        // server2 queues a single write, so the concurrent sessions keep its queue full
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        int sessionCount = 8;
+        List<CookieStore> cookieStores = new ArrayList<>();
+        List<Future<?>> writers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(sessionCount);
+        try {
+            for (int i = 0; i < sessionCount; i++) {
+                CookieStore cookieStore = new BasicCookieStore();
+                cookieStores.add(cookieStore);
+                writers.add(executor.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        assertEquals("true", executeRequest("write", serverPort2, cookieStore));
+                        assertEquals("true", executeRequest("remove", serverPort2, cookieStore));
+                        assertEquals("true", executeRequest("update", serverPort2, cookieStore));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (CookieStore cookieStore : cookieStores) {
+            String sessionId = getHazelcastSessionId(cookieStore);
+            assertTrueEventually(() -> assertEquals("value-updated", getAttribute(map, sessionId, "key")));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testInvalidate_isNotOvertakenByPendingWrite() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        String sessionId = getHazelcastSessionId(cookieStore);
+        assertNotNull(sessionId);
+        assertEquals("true", executeRequest("invalidate", serverPort1, cookieStore));
+
+        assertTrueAllTheTime(() -> assertNull(map.get(sessionId)), 2);
+    }
+
+    @Test(timeout = 60000)
+    public void testReadYourWrites_onSameInstance() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+        assertEquals("true", executeRequest("update", serverPort1, cookieStore));
+        assertEquals("value-updated", executeRequest("read", serverPort1, cookieStore));
+        assertEquals("true", executeRequest("remove", serverPort1, cookieStore));
+        assertEquals("null", executeRequest("read", serverPort1, cookieStore));
+        assertTrue(executeRequest("names", serverPort1, cookieStore).isEmpty());
+    }
+
+    private Object getAttribute(IMap<String, Object> map, String sessionId, String name) {
+        SessionState sessionState = (SessionState) map.get(sessionId);
+        if (sessionState == null) {
+            return null;
+        }
+        SerializationService ss = ((SerializationServiceSupport) hz).getSerializationService();
+        return ss.toObject(sessionState.getAttributes().get(name));
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.map.IMap;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.web.SessionState;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class DeferredWriteTrackMutationsTest extends AbstractWebFilterTest {
+
+    public DeferredWriteTrackMutationsTest() {
+        super("node1-node-deferred-track-mutations.xml", "node2-node-deferred-track-mutations.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testChangedAttributeObject_isWritten() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("1", executeRequest("appendToList", serverPort1, cookieStore));
+        assertEquals("2", executeRequest("appendToList", serverPort1, cookieStore));
+        assertEquals("3", executeRequest("appendToList", serverPort1, cookieStore));
+        String sessionId = getHazelcastSessionId(cookieStore);
+
+        assertEquals(3, getListSize(map, sessionId));
+        assertEquals("4", executeRequest("appendToList", serverPort2, cookieStore));
+        assertEquals(4, getListSize(map, sessionId));
+    }
+
+    @Test(timeout = 60000)
+    public void testUnchangedAttributeObject_isNotWritten() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        String sessionId = getHazelcastSessionId(cookieStore);
+        long version = map.getEntryView(sessionId).getVersion();
+
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+
+        assertEquals(version, map.getEntryView(sessionId).getVersion());
+    }
+
+    private int getListSize(IMap<String, Object> map, String sessionId) {
+        SessionState sessionState = (SessionState) map.get(sessionId);
+        SerializationService ss = ((SerializationServiceSupport) hz).getSerializationService();
+        List<?> list = ss.toObject(sessionState.getAttributes().get("list"));
+        return list.size();
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class HotAttributesTest extends AbstractWebFilterTest {
+
+    public HotAttributesTest() {
+        super("node1-node-hot-attributes.xml", "node2-node-hot-attributes.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testAttributesNotFetchedYet_areRead() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("setAttribute?key=value&other=otherValue", serverPort1, cookieStore));
+
+        assertEquals(new HashSet<>(Arrays.asList("key", "other")), getAttributeNames(serverPort2, cookieStore));
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+    }
+
+    @Test(timeout = 60000)
+    public void testAttributeNotFetchedYet_isRemoved() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("setAttribute?key=value&other=otherValue", serverPort1, cookieStore));
+
+        assertEquals("true", executeRequest("remove", serverPort2, cookieStore));
+        assertEquals("null", executeRequest("read", serverPort2, cookieStore));
+        assertEquals("null", executeRequest("read", serverPort1, cookieStore));
+        assertEquals(new HashSet<>(Arrays.asList("other")), getAttributeNames(serverPort1, cookieStore));
+    }
+
+    private HashSet<String> getAttributeNames(int serverPort, CookieStore cookieStore) throws Exception {
+        return new HashSet<>(Arrays.asList(executeRequest("names", serverPort, cookieStore).split(",")));
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
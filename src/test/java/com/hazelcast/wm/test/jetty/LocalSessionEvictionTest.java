@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class LocalSessionEvictionTest extends AbstractWebFilterTest {
+
+    public LocalSessionEvictionTest() {
+        super("node1-node-deferred-local-eviction.xml", "node2-node-deferred-local-eviction.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testEvictedSession_isRebuiltFromCluster() throws Exception {
+        CookieStore cookieStore1 = new BasicCookieStore();
+        CookieStore cookieStore2 = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore1));
+        // the second session evicts the first one, only one session is cached locally
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore2));
+
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore1));
+        assertEquals("true", executeRequest("update", serverPort1, cookieStore2));
+        assertEquals("value-updated", executeRequest("read", serverPort1, cookieStore2));
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore1));
+    }
+
+    @Test(timeout = 60000)
+    public void testEvictedSession_releasesOffHeapMemory() throws Exception {
+        // server1 keeps one session and 1 MB of attributes off-heap, less than the attributes of the sessions
+        for (int i = 0; i < 8; i++) {
+            assertEquals("true", executeRequest("writeLarge", serverPort1, new BasicCookieStore()));
+        }
+
+        assertEquals("0", executeRequest("offHeapEvictions", serverPort1, new BasicCookieStore()));
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
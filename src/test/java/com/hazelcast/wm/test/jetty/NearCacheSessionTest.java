@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.nearcache.NearCacheStats;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class NearCacheSessionTest extends AbstractWebFilterTest {
+
+    public NearCacheSessionTest() {
+        super("node1-node-near-cache.xml", "node2-node-near-cache.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testRemoteChanges_areReloaded() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+
+        assertEquals("true", executeRequest("update", serverPort2, cookieStore));
+        assertTrueEventually(() -> assertEquals("value-updated", executeRequest("read", serverPort1, cookieStore)));
+
+        assertEquals("true", executeRequest("remove", serverPort2, cookieStore));
+        assertTrueEventually(() -> assertEquals("null", executeRequest("read", serverPort1, cookieStore)));
+
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertTrueEventually(() -> assertEquals("value", executeRequest("read", serverPort2, cookieStore)));
+    }
+
+    @Test(timeout = 60000)
+    public void testUnchangedSession_isReadFromNearCache() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertTrueEventually(() -> assertEquals("value", executeRequest("read", serverPort2, cookieStore)));
+        // the write invalidated the Near Cache of the first instance
+        assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+
+        long hits = getNearCacheHits();
+        for (int i = 0; i < 10; i++) {
+            assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+            assertEquals("value", executeRequest("read", serverPort1, cookieStore));
+        }
+
+        assertEquals(hits + 20, getNearCacheHits());
+    }
+
+    private long getNearCacheHits() {
+        long hits = 0;
+        for (HazelcastInstance instance : Hazelcast.getAllHazelcastInstances()) {
+            NearCacheStats nearCacheStats = instance.getMap(DEFAULT_MAP_NAME).getLocalMapStats().getNearCacheStats();
+            if (nearCacheStats != null) {
+                hits += nearCacheStats.getHits();
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class ObjectInMemoryFormatTest extends AbstractWebFilterTest {
+
+    public ObjectInMemoryFormatTest() {
+        super("node1-node-object-format.xml", "node2-node-object-format.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testInstancesOfWebFilter_useObjectFormat() {
+        for (HazelcastInstance instance : Hazelcast.getAllHazelcastInstances()) {
+            if (instance != hz) {
+                assertEquals(InMemoryFormat.OBJECT, instance.getConfig().getMapConfig(DEFAULT_MAP_NAME).getInMemoryFormat());
+            }
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testSessionUpdates_areReplicated() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+
+        assertEquals("true", executeRequest("update", serverPort2, cookieStore));
+        assertEquals("value-updated", executeRequest("read", serverPort1, cookieStore));
+
+        assertEquals("true", executeRequest("remove", serverPort1, cookieStore));
+        assertEquals("null", executeRequest("read", serverPort2, cookieStore));
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
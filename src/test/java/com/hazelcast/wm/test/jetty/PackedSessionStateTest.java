@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 Hazelcast Inc.
+ *
+ * Licensed under the Hazelcast Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://hazelcast.com/hazelcast-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+
+package com.hazelcast.wm.test.jetty;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.web.PackedSessionState;
+import com.hazelcast.wm.test.AbstractWebFilterTest;
+import com.hazelcast.wm.test.ServletContainer;
+import org.apache.http.client.CookieStore;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Only the first instance stores new sessions as {@link PackedSessionState},
+ * like a cluster in the middle of a rolling upgrade.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class PackedSessionStateTest extends AbstractWebFilterTest {
+
+    public PackedSessionStateTest() {
+        super("node1-node-packed-state.xml", "node2-node.xml");
+    }
+
+    @Test(timeout = 60000)
+    public void testPackedSession_isSharedWithOtherFormat() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort1, cookieStore));
+        assertTrue(map.get(getHazelcastSessionId(cookieStore)) instanceof PackedSessionState);
+
+        assertEquals("value", executeRequest("read", serverPort2, cookieStore));
+        assertEquals("true", executeRequest("update", serverPort2, cookieStore));
+        assertEquals("value-updated", executeRequest("read", serverPort1, cookieStore));
+        assertEquals("true", executeRequest("remove", serverPort2, cookieStore));
+        assertEquals("null", executeRequest("read", serverPort1, cookieStore));
+    }
+
+    @Test(timeout = 60000)
+    public void testSessionInOtherFormat_keepsItsFormat() throws Exception {
+        IMap<String, Object> map = hz.getMap(DEFAULT_MAP_NAME);
+        CookieStore cookieStore = new BasicCookieStore();
+        assertEquals("true", executeRequest("write", serverPort2, cookieStore));
+        assertEquals("true", executeRequest("update", serverPort1, cookieStore));
+
+        assertFalse(map.get(getHazelcastSessionId(cookieStore)) instanceof PackedSessionState);
+        assertEquals("value-updated", executeRequest("read", serverPort2, cookieStore));
+    }
+
+    @Override
+    public ServletContainer getServletContainer(int port, String sourceDir, String serverXml) throws Exception {
+        return new JettyServer(port, sourceDir, serverXml);
+    }
+}
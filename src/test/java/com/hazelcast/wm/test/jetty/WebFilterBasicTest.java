@@ -33,6 +33,7 @@ import java.util.HashMap;
 import static com.hazelcast.wm.test.AbstractWebFilterTest.RequestType.POST;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests to basic session methods. getAttribute,setAttribute,isNew,getAttributeNames etc.
@@ -161,6 +162,20 @@ public class WebFilterBasicTest extends AbstractWebFilterTest {
         assertSizeEventually(0, map);
     }
 
+    @Test(timeout = 40000)
+    public void test_sessionTimeout_doesNotKeepLocalSession_byDefault() throws Exception {
+        CookieStore cookieStore = new BasicCookieStore();
+        // the sessions of the other tests are cached by the same filter
+        int localSessions = Integer.parseInt(executeRequest("localSessions", serverPort1, cookieStore));
+        executeRequest("write", serverPort1, cookieStore);
+        assertEquals(localSessions + 1, Integer.parseInt(executeRequest("localSessions", serverPort1, cookieStore)));
+        executeRequest("timeout", serverPort1, cookieStore);
+
+        // the container expires the session when it is requested after its timeout
+        sleepSeconds(2);
+        assertTrue(Integer.parseInt(executeRequest("localSessions", serverPort1, cookieStore)) <= localSessions);
+    }
+
     @Test(timeout = 20000)
     public void testServerRestart() throws Exception {
         CookieStore cookieStore = new BasicCookieStore();